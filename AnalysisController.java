@@ -0,0 +1,88 @@
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * AnalysisController.java
+ *
+ * Hint endpoint: every legal move in a position with its exact value (see
+ * MoveAnalyzer), for showing hints and flagging blunders.
+ *
+ * POST /api/analysis  {"board": [-1,3,-1, -1,-1,-1, -1,7,9], "toMove": "even"}
+ * - board  : 9 cells in row-major order, -1 = empty (as in /api/move)
+ * - toMove : parity of the side to move, "odd" or "even"
+ * GET  /api/analysis/stats  -> cache hits, misses, evictions, hit ratio, size
+ *
+ * The response lists the moves best first, each with its value for the side to
+ * move (100 - n: it wins on move n, -100 + n: it loses, 0: tie), its result
+ * ("win", "loss" or "tie", the same word for a tie as status uses), the winner's
+ * parity and how many plies from now, this move included, the game is decided
+ * in (both null for a tie). status is "ongoing", "oddWon", "evenWon" or "tie";
+ * a finished game has no moves.
+ */
+@RestController
+@CrossOrigin
+public class AnalysisController {
+
+    private final MoveAnalyzer analyzer;
+
+    public AnalysisController(MoveAnalyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    public record AnalysisRequest(int[] board, String toMove) {
+    }
+
+    public record ScoredMove(int row, int col, int digit, int value, String result, String winner, Integer plies) {
+    }
+
+    public record AnalysisResponse(String toMove, String status, int value, boolean cached, long nodes,
+                                   ScoredMove[] moves) {
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, double hitRatio, int size) {
+    }
+
+    @PostMapping("/api/analysis")
+    public AnalysisResponse analyze(@RequestBody AnalysisRequest request) {
+        boolean moverIsOdd = MoveController.parseChoice(request.toMove(), "odd", "even", "toMove");
+        long pos = MoveController.packBoard(request.board());
+        try {
+            BatchAnalyzer.checkTurn(pos, moverIsOdd);
+        } catch (IllegalArgumentException e) {
+            throw MoveController.badRequest(e.getMessage());
+        }
+
+        MoveAnalyzer.Analysis analysis = analyzer.analyze(pos, moverIsOdd);
+        int pieces = BitBoard.pieceCount(pos);
+        ScoredMove[] moves = new ScoredMove[analysis.moves().length];
+        for (int i = 0; i < moves.length; i++) {
+            int move = analysis.moves()[i];
+            int value = analysis.values()[i];
+            int cell = BitBoard.moveCell(move);
+            String winner = value == 0 ? null : parity((value > 0) == moverIsOdd);
+            Integer plies = value == 0 ? null : MoveAnalyzer.decidedOnMove(value) - pieces;
+            moves[i] = new ScoredMove(cell / 3, cell % 3, BitBoard.moveDigit(move), value,
+                value > 0 ? "win" : value < 0 ? "loss" : "tie", winner, plies);
+        }
+        String status = "ongoing";
+        if (moves.length == 0) {
+            // resolve(): the previous mover completed a line, or nobody can move
+            status = analysis.value() < 0 ? parity(!moverIsOdd) + "Won" : "tie";
+        }
+        return new AnalysisResponse(parity(moverIsOdd), status, analysis.value(), analysis.cached(),
+            analysis.nodes(), moves);
+    }
+
+    @GetMapping("/api/analysis/stats")
+    public CacheStats stats() {
+        return new CacheStats(analyzer.hits(), analyzer.misses(), analyzer.evictions(),
+            analyzer.hitRatio(), analyzer.size());
+    }
+
+    private static String parity(boolean odd) {
+        return odd ? "odd" : "even";
+    }
+}
@@ -0,0 +1,153 @@
+import java.util.Random;
+
+/**
+ * AnytimeSearch.java
+ *
+ * Iterative deepening on top of MinimaxSearch, for when latency matters more than
+ * perfect play: the AI's moves are searched 1, 2, 3... plies ahead, with positions
+ * at the horizon scored by MinimaxSearch.evaluate(), until the end of the game,
+ * a ply cap, a proven win or loss, or the budget runs out.
+ *
+ * Each completed iteration replaces the root scores and reorders the root moves
+ * best first for the next one; an interrupted iteration is thrown away. The first
+ * iteration ignores the budget (it is one node per move), so there is always a
+ * best-so-far move, and bestSoFar() can be read from another thread while the
+ * search runs.
+ *
+ * The transposition table may be shared with full-depth searches, since entries
+ * record how deep they were searched (see TranspositionTable).
+ *
+ * One search at a time per instance.
+ */
+final class AnytimeSearch {
+
+    static final int NO_MOVE = -1;
+
+    private final MinimaxSearch search;
+    private final boolean humanIsOdd;
+
+    // Root moves and their scores from the last completed iteration, best first
+    private final int[] moves = new int[BitBoard.CELLS * 10];
+    private final int[] scores = new int[BitBoard.CELLS * 10];
+    private final int[] pending = new int[BitBoard.CELLS * 10];
+    private int count;
+    private int plies;
+    private volatile int bestSoFar = NO_MOVE;
+
+    AnytimeSearch(boolean humanIsOdd, TranspositionTable tt) {
+        this.humanIsOdd = humanIsOdd;
+        this.search = new MinimaxSearch(humanIsOdd, tt);
+    }
+
+    // Deepens from pos (AI to move, with at least one move) until done or out of
+    // budget, and adds the search's counters, depth reached and best score to stats.
+    // exactScores searches every root move with a full window so non-best moves
+    // get exact scores too (choose() with noise compares them); otherwise they only
+    // have to show they are worse than the best.
+    void search(long pos, int maxPlies, SearchBudget budget, boolean exactScores, SearchStats stats) {
+        int depth = BitBoard.pieceCount(pos);
+        long lines = BitBoard.lines(pos);
+        int digits = BitBoard.availableDigits(pos, !humanIsOdd);
+        count = 0;
+        plies = 0;
+        bestSoFar = NO_MOVE;
+        search.stopped = false;
+        for (long cells = BitBoard.emptyCells(pos); cells != 0; cells &= cells - 1) {
+            int cell = BitBoard.cellAt(cells);
+            for (int ds = digits; ds != 0; ds &= ds - 1) {
+                moves[count++] = BitBoard.move(cell, Integer.numberOfTrailingZeros(ds));
+            }
+        }
+
+        for (int p = 1; p <= maxPlies && depth + p <= BitBoard.CELLS; p++) {
+            search.horizon = depth + p;
+            search.budget = p == 1 ? null : budget;
+            int best = searchRoot(pos, lines, depth, exactScores);
+            if (search.stopped) {
+                break;
+            }
+            System.arraycopy(pending, 0, scores, 0, count);
+            sortBestFirst();
+            plies = p;
+            bestSoFar = moves[0];
+            if (Math.abs(best) > MinimaxSearch.HEURISTIC_LIMIT) {
+                break;  // a forced win or loss; looking further won't change it
+            }
+        }
+
+        stats.add(search);
+        stats.plies = plies;
+        stats.score = scores[0];
+    }
+
+    // One iteration over the root moves at the current horizon, into pending
+    private int searchRoot(long pos, long lines, int depth, boolean exactScores) {
+        int best = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int cell = BitBoard.moveCell(moves[i]);
+            int d = BitBoard.moveDigit(moves[i]);
+            long child = BitBoard.place(pos, cell, d);
+            long childLines = BitBoard.addToLines(lines, cell, d);
+            int score;
+            if (exactScores || best == Integer.MIN_VALUE) {
+                score = search.minimax(child, childLines, cell, depth + 1, false, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            } else {
+                // Same shared window as MinimaxSearch.bestMoves()
+                score = search.minimax(child, childLines, cell, depth + 1, false, best - 1, best + 1);
+                if (score > best) {
+                    score = search.minimax(child, childLines, cell, depth + 1, false, best, Integer.MAX_VALUE);
+                }
+            }
+            if (search.stopped) {
+                return best;
+            }
+            pending[i] = score;
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    // Insertion sort of moves/scores by score, highest first; ties keep their order
+    private void sortBestFirst() {
+        for (int i = 1; i < count; i++) {
+            int m = moves[i], s = scores[i];
+            int j = i;
+            while (j > 0 && scores[j - 1] < s) {
+                moves[j] = moves[j - 1];
+                scores[j] = scores[j - 1];
+                j--;
+            }
+            moves[j] = m;
+            scores[j] = s;
+        }
+    }
+
+    // Best move of the deepest completed iteration, or NO_MOVE before the first one
+    int bestSoFar() {
+        return bestSoFar;
+    }
+
+    // Plies ahead the last completed iteration looked
+    int plies() {
+        return plies;
+    }
+
+    // Picks the root move with the highest score plus uniform noise in [-noise, noise],
+    // at random among ties
+    int choose(Random rand, int noise) {
+        int best = Integer.MIN_VALUE;
+        int pick = NO_MOVE;
+        int ties = 0;
+        for (int i = 0; i < count; i++) {
+            int s = noise > 0 ? scores[i] + rand.nextInt(2 * noise + 1) - noise : scores[i];
+            if (s > best) {
+                best = s;
+                pick = moves[i];
+                ties = 1;
+            } else if (s == best && rand.nextInt(++ties) == 0) {
+                pick = moves[i];
+            }
+        }
+        return pick;
+    }
+}
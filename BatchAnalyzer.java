@@ -0,0 +1,223 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BatchAnalyzer.java
+ *
+ * Headless analysis of many positions, one JSON object per line (NDJSON) in and out.
+ *
+ * Usage: java BatchAnalyzer [input|-] [threads]   (default: stdin, one thread per core)
+ *
+ * Input lines:
+ *   {"board": [-1,3,-1, -1,-1,-1, -1,7,9], "toMove": "even"}
+ * - board  : 9 cells in row-major order, -1 = empty (as in the move service)
+ * - toMove : parity of the side to move, "odd" or "even"
+ *
+ * Output lines, in input order (line = input line number, blank lines are skipped):
+ *   {"line":1,"value":0,"bestMoves":[{"row":0,"col":0,"digit":8},...],"nodes":1234}
+ *   {"line":2,"error":"board must have 9 cells"}
+ * value is from the side to move's point of view (100 - n: it wins on move n,
+ * -100 + n: it loses, 0: tie). A finished game has no best moves.
+ *
+ * Positions are searched in parallel, each on one worker with the engine's shared
+ * transposition tables (or the solution table, if present). At most a fixed number
+ * of lines are in flight: the reader blocks once the window is full and results are
+ * written as soon as the oldest one is done, so memory stays constant however long
+ * the input is.
+ */
+final class BatchAnalyzer {
+
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+    private static final Future<String> END = CompletableFuture.completedFuture(null);
+
+    private final GameEngine engine;
+
+    BatchAnalyzer(GameEngine engine) {
+        this.engine = engine;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String input = args.length > 0 ? args[0] : "-";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        // Parallelism comes from analyzing many positions at once, so each search is sequential
+        BatchAnalyzer analyzer = new BatchAnalyzer(new GameEngine(GameEngine.loadSolutions(), 1));
+        BufferedReader in = input.equals("-")
+            ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+            : Files.newBufferedReader(Path.of(input), StandardCharsets.UTF_8);
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (in) {
+            analyzer.run(in, out, threads);
+        }
+        out.flush();
+    }
+
+    // Analyzes every line of in on threads workers and writes the results to out in order
+    void run(BufferedReader in, BufferedWriter out, int threads) throws IOException, InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        BlockingQueue<Future<String>> pending = new ArrayBlockingQueue<>(threads * IN_FLIGHT_PER_THREAD);
+        IOException[] readError = new IOException[1];
+
+        // put() blocks while the window is full; the writer interrupts it if it gives up
+        Thread reader = new Thread(() -> {
+            try {
+                try {
+                    int lineNo = 0;
+                    for (String line; (line = in.readLine()) != null; ) {
+                        lineNo++;
+                        if (line.isBlank()) continue;
+                        String json = line;
+                        int n = lineNo;
+                        pending.put(workers.submit(() -> analyze(n, json)));
+                    }
+                } catch (IOException e) {
+                    readError[0] = e;
+                }
+                pending.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "batch-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            for (Future<String> result; (result = pending.take()) != END; ) {
+                // Don't sit on finished lines while the next one is still being searched
+                if (!result.isDone()) out.flush();
+                out.write(result.get());
+                out.newLine();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Analysis failed", e.getCause());
+        } finally {
+            reader.interrupt();
+            workers.shutdownNow();
+        }
+        reader.join();
+        if (readError[0] != null) {
+            throw readError[0];
+        }
+    }
+
+    // One output line for one input line
+    String analyze(int lineNo, String json) {
+        StringBuilder sb = new StringBuilder(160).append("{\"line\":").append(lineNo);
+        long pos;
+        boolean moverIsOdd;
+        try {
+            pos = parseBoard(json);
+            moverIsOdd = parseToMove(json);
+            checkTurn(pos, moverIsOdd);
+        } catch (IllegalArgumentException e) {
+            return sb.append(",\"error\":\"").append(escape(e.getMessage())).append("\"}").toString();
+        }
+
+        int[] moves = new int[BitBoard.CELLS * 10];
+        int n = 0;
+        SearchStats stats = new SearchStats();
+        int value = SolutionTable.resolve(pos, moverIsOdd);
+        if (value == SolutionTable.NONE) {
+            n = engine.bestMoves(pos, moverIsOdd, moves, stats);
+            value = stats.score;
+        }
+
+        sb.append(",\"value\":").append(value).append(",\"bestMoves\":[");
+        for (int i = 0; i < n; i++) {
+            int cell = BitBoard.moveCell(moves[i]);
+            if (i > 0) sb.append(',');
+            sb.append("{\"row\":").append(cell / 3)
+              .append(",\"col\":").append(cell % 3)
+              .append(",\"digit\":").append(BitBoard.moveDigit(moves[i])).append('}');
+        }
+        return sb.append("],\"nodes\":").append(stats.nodes).append('}').toString();
+    }
+
+    // Reads and checks the "board" array; only the fields used here are understood
+    static long parseBoard(String json) {
+        int i = valueStart(json, "board");
+        if (i >= json.length() || json.charAt(i) != '[') {
+            throw new IllegalArgumentException("board must be an array");
+        }
+        int end = json.indexOf(']', i);
+        if (end < 0) {
+            throw new IllegalArgumentException("board must be an array");
+        }
+        String[] cells = json.substring(i + 1, end).split(",");
+        if (cells.length != BitBoard.CELLS) {
+            throw new IllegalArgumentException("board must have 9 cells");
+        }
+        long pos = BitBoard.EMPTY;
+        for (int c = 0; c < BitBoard.CELLS; c++) {
+            int d;
+            try {
+                d = Integer.parseInt(cells[c].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cells must be -1 (empty) or a digit 0..9");
+            }
+            if (d == -1) continue;
+            if (d < 0 || d > 9) {
+                throw new IllegalArgumentException("Cells must be -1 (empty) or a digit 0..9");
+            }
+            if (BitBoard.isUsed(pos, d)) {
+                throw new IllegalArgumentException("Digit " + d + " is used twice");
+            }
+            pos = BitBoard.place(pos, c, d);
+        }
+        return pos;
+    }
+
+    // The sides alternate, so the side to move has placed pieces / 2 and the other side
+    // the rest; 0 may belong to either side, every other digit gives away who played it
+    static void checkTurn(long pos, boolean moverIsOdd) {
+        int pieces = BitBoard.pieceCount(pos);
+        int odd = Integer.bitCount(BitBoard.usedMask(pos) & BitBoard.ODD_DIGITS & ~1);
+        int even = Integer.bitCount(BitBoard.usedMask(pos) & BitBoard.EVEN_DIGITS & ~1);
+        int moverMoves = pieces / 2;
+        int otherMoves = pieces - moverMoves;
+        if ((moverIsOdd ? odd : even) > moverMoves || (moverIsOdd ? even : odd) > otherMoves) {
+            throw new IllegalArgumentException("Board doesn't match the side to move");
+        }
+    }
+
+    static boolean parseToMove(String json) {
+        int i = valueStart(json, "toMove");
+        int end = i < json.length() && json.charAt(i) == '"' ? json.indexOf('"', i + 1) : -1;
+        String value = end < 0 ? "" : json.substring(i + 1, end);
+        if (value.equalsIgnoreCase("odd")) return true;
+        if (value.equalsIgnoreCase("even")) return false;
+        throw new IllegalArgumentException("toMove must be 'odd' or 'even'");
+    }
+
+    // Index of the first non-blank character after "field":
+    private static int valueStart(String json, String field) {
+        int i = json.indexOf("\"" + field + "\"");
+        if (i < 0) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        i = json.indexOf(':', i + field.length() + 2);
+        if (i < 0) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        i++;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        return i;
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * BitBoard.java
+ *
+ * Packed Game of 15 position held in a single long:
+ * - bits 0..35  : nine 4-bit cells in row-major order (cell = row * 3 + col).
+ *                 0xF means empty, anything else is the digit 0..9 placed there.
+ * - bits 36..45 : used-digit mask, bit (36 + d) is set once digit d is on the board.
+ *
+ * Positions are plain values: "make" returns a new long and "unmake" is simply
+ * going back to the previous one, so the search path never allocates.
+ * Moves are packed into an int as (cell << 4) | digit.
+ *
+ * The search also carries a second long with running line sums, one byte per
+ * line in LINES order: bits 0..4 hold the sum of the digits on the line and
+ * bits 5..6 how many of its cells are filled. Placing a digit is one multiply-add
+ * and a win is a byte equal to 3 cells + sum 15 on a line through the last cell.
+ */
+final class BitBoard {
+
+    static final int CELLS = 9;
+    static final int EMPTY_CELL = 0xF;
+    static final int USED_SHIFT = 36;
+
+    static final long CELL_BITS = (1L << USED_SHIFT) - 1;
+    static final long EMPTY = CELL_BITS;              // every cell 0xF, no digit used
+    static final long NIBBLE_LOW = 0x111111111L;      // lowest bit of each cell nibble
+
+    // Digit sets as 10-bit masks; 0 belongs to both sides
+    static final int ODD_DIGITS = 0b1010101011;       // {0,1,3,5,7,9}
+    static final int EVEN_DIGITS = 0b0101010101;      // {0,2,4,6,8}
+
+    // The 8 winning lines as cell indices: rows, columns, diagonals
+    static final int[][] LINES = {
+        {0, 1, 2}, {3, 4, 5}, {6, 7, 8},
+        {0, 3, 6}, {1, 4, 7}, {2, 5, 8},
+        {0, 4, 8}, {2, 4, 6}
+    };
+
+    static final long EMPTY_LINES = 0L;
+    private static final long LINE_WON = 0x6F6F6F6F6F6F6F6FL;   // 3 filled (0x60) + sum 15
+    private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+    private static final long COUNT_HIGH = 0x4040404040404040L;  // high bit of each fill count
+
+    // Low bit of the byte of every line through a cell
+    private static final long[] CELL_LINES = new long[CELLS];
+
+    static {
+        for (int l = 0; l < LINES.length; l++) {
+            for (int i : LINES[l]) {
+                CELL_LINES[i] |= 1L << (l << 3);
+            }
+        }
+    }
+
+    private BitBoard() {
+    }
+
+    // Digit in cell i, or EMPTY_CELL
+    static int cell(long pos, int i) {
+        return (int) (pos >>> (i << 2)) & 0xF;
+    }
+
+    static boolean isEmpty(long pos, int i) {
+        return cell(pos, i) == EMPTY_CELL;
+    }
+
+    static int usedMask(long pos) {
+        return (int) (pos >>> USED_SHIFT) & 0x3FF;
+    }
+
+    static boolean isUsed(long pos, int d) {
+        return (pos & (1L << (USED_SHIFT + d))) != 0;
+    }
+
+    // Number of digits on the board (0..9)
+    static int pieceCount(long pos) {
+        return Integer.bitCount(usedMask(pos));
+    }
+
+    // Place digit d in cell i (cell must be empty and digit unused)
+    static long place(long pos, int i, int d) {
+        int shift = i << 2;
+        return (pos & ~(0xFL << shift)) | ((long) d << shift) | (1L << (USED_SHIFT + d));
+    }
+
+    // Nibble-aligned mask with the low bit of every empty cell set.
+    // Iterate with cellAt(mask) and mask &= mask - 1.
+    static long emptyCells(long pos) {
+        return pos & (pos >>> 1) & (pos >>> 2) & (pos >>> 3) & NIBBLE_LOW;
+    }
+
+    // Cell index of the lowest bit of an emptyCells() mask
+    static int cellAt(long cellMask) {
+        return Long.numberOfTrailingZeros(cellMask) >>> 2;
+    }
+
+    // Digits the given side may still place
+    static int availableDigits(long pos, boolean odd) {
+        return (odd ? ODD_DIGITS : EVEN_DIGITS) & ~usedMask(pos);
+    }
+
+    // True if some full line sums to 15
+    static boolean hasLine15(long pos) {
+        for (int[] line : LINES) {
+            int a = cell(pos, line[0]);
+            int b = cell(pos, line[1]);
+            int c = cell(pos, line[2]);
+            if (a != EMPTY_CELL && b != EMPTY_CELL && c != EMPTY_CELL && a + b + c == 15) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Line sums of a position, built from scratch
+    static long lines(long pos) {
+        long lines = EMPTY_LINES;
+        for (long cells = ~emptyCells(pos) & NIBBLE_LOW; cells != 0; cells &= cells - 1) {
+            int i = cellAt(cells);
+            lines = addToLines(lines, i, cell(pos, i));
+        }
+        return lines;
+    }
+
+    // Line sums after placing digit d in cell i
+    static long addToLines(long lines, int i, int d) {
+        return lines + (d + 32) * CELL_LINES[i];
+    }
+
+    // True if a line through cell i is full and sums to 15
+    static boolean completesLine(long lines, int i) {
+        long x = lines ^ LINE_WON;
+        long t = ((x & LOW7) + LOW7) | x;      // high bit of a byte stays clear only if it was 0
+        return (~t & (CELL_LINES[i] << 7)) != 0;
+    }
+
+    // Cells (as a 9-bit mask) where placing one of digits would complete a line of 15
+    static int winningCells(long pos, long lines, int digits) {
+        int cells = 0;
+        // Lines with exactly two pieces: fill count 0b10 in bits 5..6
+        for (long two = lines & COUNT_HIGH & ~(lines << 1); two != 0; two &= two - 1) {
+            int l = Long.numberOfTrailingZeros(two) >>> 3;
+            int need = 15 - ((int) (lines >>> (l << 3)) & 0x1F);
+            if (need >= 0 && need <= 9 && (digits & (1 << need)) != 0) {
+                int[] line = LINES[l];
+                int empty = isEmpty(pos, line[0]) ? line[0] : isEmpty(pos, line[1]) ? line[1] : line[2];
+                cells |= 1 << empty;
+            }
+        }
+        return cells;
+    }
+
+    static int move(int cell, int digit) {
+        return (cell << 4) | digit;
+    }
+
+    static int moveCell(int move) {
+        return move >>> 4;
+    }
+
+    static int moveDigit(int move) {
+        return move & 0xF;
+    }
+}
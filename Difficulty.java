@@ -0,0 +1,42 @@
+/**
+ * Difficulty.java
+ *
+ * AI strength levels. Each caps how many plies the AI looks ahead and how long
+ * it may think per move, and adds random noise (up to +/- noise points) to its
+ * root scores before picking. Wins and losses score 91..99 points away from a
+ * tie, so only EASY's noise is big enough to sometimes miss one.
+ *
+ * PERFECT is the full-depth search (or the solution table) with no noise.
+ */
+enum Difficulty {
+    EASY(1, 10, 60),
+    MEDIUM(3, 50, 15),
+    HARD(5, 200, 0),
+    PERFECT(BitBoard.CELLS, 0, 0);
+
+    final int maxPlies;
+    final long budgetMillis;    // 0 => no time limit
+    final int noise;
+
+    Difficulty(int maxPlies, long budgetMillis, int noise) {
+        this.maxPlies = maxPlies;
+        this.budgetMillis = budgetMillis;
+        this.noise = noise;
+    }
+
+    // A fresh budget for one move; its clock starts now
+    SearchBudget budget() {
+        return budgetMillis == 0 ? SearchBudget.unlimited() : SearchBudget.ofMillis(budgetMillis);
+    }
+
+    // "easy", "medium", "hard" or "perfect", any case; null => PERFECT
+    static Difficulty parse(String name) {
+        if (name == null) {
+            return PERFECT;
+        }
+        for (Difficulty d : values()) {
+            if (d.name().equalsIgnoreCase(name.trim())) return d;
+        }
+        throw new IllegalArgumentException("Difficulty must be easy, medium, hard or perfect");
+    }
+}
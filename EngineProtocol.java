@@ -0,0 +1,237 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * EngineProtocol.java
+ *
+ * Headless engine for other programs to drive over stdin/stdout, one command per
+ * line and no board printing, so a dispatcher can keep a pool of these processes
+ * busy.
+ *
+ * Usage: java EngineProtocol   (engine options as for the console game:
+ *                               -Dgameof15.solution, -Dgameof15.threads (default 1),
+ *                               -Dgameof15.seed)
+ *
+ * Moves are written rcd: row, column and digit, e.g. 127 puts a 7 at row 1, col 2.
+ *
+ * Commands:
+ *   first odd|even             which digit set moves first (default odd); set it
+ *                              before position, which checks moves against it
+ *   position start|<cells> [moves rcd ...]
+ *                              <cells> is 9 characters in row-major order, a digit
+ *                              or '.' for empty, e.g. .3.....79
+ *   go [level easy|medium|hard|perfect] [depth n] [movetime ms] [nodes n]
+ *                              plays the side to move; perfect (the default) with
+ *                              no limits is the exact full-depth answer, any limit
+ *                              makes it an anytime search that stops there
+ *      -> bestmove rcd score s nodes n micros t
+ *         bestmove none score s   (the game is over; s is for the side to move)
+ *   play rcd                   makes a move in the current position
+ *   analyze                    -> moves rcd:s rcd:s ...   (every move, best first)
+ *   newgame                    start position, odd first
+ *   isready                    -> readyok
+ *   quit
+ * Scores are from the side to move's point of view: 100 - n wins on move n,
+ * -100 + n loses on move n, 0 ties. A bad command answers "error <message>" and
+ * leaves the state as it was.
+ *
+ * Commands may be pipelined: replies come in order, and output is only flushed
+ * when no more input is waiting, so a batch of commands costs one write.
+ */
+final class EngineProtocol {
+
+    private final GameEngine engine;
+    private final MoveAnalyzer analyzer;
+    private final Random rand;
+
+    private boolean firstIsOdd = true;
+    private long pos = BitBoard.EMPTY;
+
+    EngineProtocol(GameEngine engine, Random rand) {
+        this.engine = engine;
+        this.analyzer = new MoveAnalyzer(engine, 4096);
+        this.rand = rand;
+    }
+
+    public static void main(String[] args) throws IOException {
+        GameEngine engine = new GameEngine(GameEngine.loadSolutions(), GameEngine.threads(1));
+        Long seed = Long.getLong("gameof15.seed");
+        EngineProtocol protocol = new EngineProtocol(engine, seed != null ? new Random(seed) : new Random());
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try {
+            protocol.run(in, out);
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    // Answers commands from in until quit or end of input
+    void run(BufferedReader in, Writer out) throws IOException {
+        StringBuilder reply = new StringBuilder(256);
+        for (String line; (line = in.readLine()) != null; ) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            if (line.equals("quit")) break;
+            reply.setLength(0);
+            try {
+                execute(line, reply);
+            } catch (IllegalArgumentException e) {
+                reply.setLength(0);
+                reply.append("error ").append(e.getMessage()).append('\n');
+            }
+            out.append(reply);
+            if (!in.ready()) out.flush();
+        }
+        out.flush();
+    }
+
+    // Runs one command, appending its reply lines (if any) to reply
+    void execute(String line, StringBuilder reply) {
+        String[] t = line.split("\\s+");
+        switch (t[0]) {
+            case "first" -> {
+                expect(t.length == 2, "usage: first odd|even");
+                firstIsOdd = parseParity(t[1]);
+            }
+            case "position" -> pos = parsePosition(t);
+            case "go" -> go(t, reply);
+            case "play" -> {
+                expect(t.length == 2, "usage: play rcd");
+                pos = play(pos, t[1]);
+            }
+            case "analyze" -> analyze(reply);
+            case "newgame" -> {
+                firstIsOdd = true;
+                pos = BitBoard.EMPTY;
+            }
+            case "isready" -> reply.append("readyok\n");
+            default -> throw new IllegalArgumentException("unknown command " + t[0]);
+        }
+    }
+
+    private boolean moverIsOdd(long p) {
+        return (BitBoard.pieceCount(p) % 2 == 0) == firstIsOdd;
+    }
+
+    private void go(String[] t, StringBuilder reply) {
+        Difficulty difficulty = Difficulty.PERFECT;
+        int plies = 0;
+        long millis = 0, nodes = 0;
+        for (int i = 1; i < t.length; i += 2) {
+            expect(i + 1 < t.length, "missing value for " + t[i]);
+            switch (t[i]) {
+                case "level" -> difficulty = Difficulty.parse(t[i + 1]);
+                case "depth" -> plies = parsePositive(t[i + 1], "depth");
+                case "movetime" -> millis = parsePositive(t[i + 1], "movetime");
+                case "nodes" -> nodes = parsePositive(t[i + 1], "nodes");
+                default -> throw new IllegalArgumentException("unknown go option " + t[i]);
+            }
+        }
+        boolean moverIsOdd = moverIsOdd(pos);
+        int over = SolutionTable.resolve(pos, moverIsOdd);
+        if (over != SolutionTable.NONE) {
+            reply.append("bestmove none score ").append(over).append('\n');
+            return;
+        }
+
+        SearchStats stats = new SearchStats();
+        int move;
+        if (plies == 0 && millis == 0 && nodes == 0) {
+            move = engine.chooseMove(pos, moverIsOdd, difficulty, rand, stats);
+        } else {
+            // Explicit limits tighten the level's own
+            int maxPlies = Math.min(plies == 0 ? BitBoard.CELLS : plies, difficulty.maxPlies);
+            if (difficulty.budgetMillis != 0) {
+                millis = millis == 0 ? difficulty.budgetMillis : Math.min(millis, difficulty.budgetMillis);
+            }
+            move = engine.anytimeMove(pos, moverIsOdd, maxPlies, SearchBudget.of(millis, nodes),
+                difficulty.noise, rand, stats);
+        }
+        reply.append("bestmove ");
+        appendMove(reply, move);
+        reply.append(" score ").append(stats.score)
+            .append(" nodes ").append(stats.nodes)
+            .append(" micros ").append(stats.wallNanos / 1000).append('\n');
+    }
+
+    private void analyze(StringBuilder reply) {
+        MoveAnalyzer.Analysis analysis = analyzer.analyze(pos, moverIsOdd(pos));
+        reply.append("moves");
+        for (int i = 0; i < analysis.moves().length; i++) {
+            reply.append(' ');
+            appendMove(reply, analysis.moves()[i]);
+            reply.append(':').append(analysis.values()[i]);
+        }
+        reply.append('\n');
+    }
+
+    private long parsePosition(String[] t) {
+        expect(t.length >= 2, "usage: position start|<cells> [moves rcd ...]");
+        long p = BitBoard.EMPTY;
+        if (!t[1].equals("start")) {
+            String cells = t[1];
+            expect(cells.length() == BitBoard.CELLS, "cells must be 9 characters");
+            for (int i = 0; i < BitBoard.CELLS; i++) {
+                char c = cells.charAt(i);
+                if (c == '.') continue;
+                expect(c >= '0' && c <= '9', "cells must be digits or '.'");
+                expect(!BitBoard.isUsed(p, c - '0'), "digit " + c + " is used twice");
+                p = BitBoard.place(p, i, c - '0');
+            }
+            BatchAnalyzer.checkTurn(p, moverIsOdd(p));
+        }
+        int i = 2;
+        if (i < t.length) {
+            expect(t[i].equals("moves"), "expected moves, got " + t[i]);
+            for (i++; i < t.length; i++) {
+                p = play(p, t[i]);
+            }
+        }
+        return p;
+    }
+
+    // p after the side to move plays rcd, if that is legal
+    private long play(long p, String rcd) {
+        expect(rcd.length() == 3 && rcd.chars().allMatch(Character::isDigit), "moves are rcd, e.g. 127");
+        int r = rcd.charAt(0) - '0', c = rcd.charAt(1) - '0', d = rcd.charAt(2) - '0';
+        expect(r < 3 && c < 3, "row and col must be 0..2 in " + rcd);
+        boolean moverIsOdd = moverIsOdd(p);
+        expect(SolutionTable.resolve(p, moverIsOdd) == SolutionTable.NONE, "the game is over");
+        expect(BitBoard.isEmpty(p, r * 3 + c), "cell " + r + c + " is taken");
+        expect((BitBoard.availableDigits(p, moverIsOdd) & (1 << d)) != 0,
+            "digit " + d + " isn't available to " + (moverIsOdd ? "odd" : "even"));
+        return BitBoard.place(p, r * 3 + c, d);
+    }
+
+    private static void appendMove(StringBuilder sb, int move) {
+        int cell = BitBoard.moveCell(move);
+        sb.append(cell / 3).append(cell % 3).append(BitBoard.moveDigit(move));
+    }
+
+    private static boolean parseParity(String s) {
+        if (s.equals("odd")) return true;
+        if (s.equals("even")) return false;
+        throw new IllegalArgumentException("parity must be odd or even");
+    }
+
+    private static int parsePositive(String s, String what) {
+        try {
+            int v = Integer.parseInt(s);
+            if (v > 0) return v;
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        throw new IllegalArgumentException(what + " must be a positive number");
+    }
+
+    private static void expect(boolean ok, String message) {
+        if (!ok) throw new IllegalArgumentException(message);
+    }
+}
@@ -0,0 +1,192 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * GameEngine.java
+ *
+ * Console-free AI move selection, shared by the interactive game and the HTTP
+ * move service. Uses the precomputed SolutionTable when one is loaded, otherwise
+ * full-depth minimax, split across root moves when more than one thread is set.
+ *
+ * Thread-safe: every call gets its own MinimaxSearch, and the transposition tables
+ * (one per AI parity, since scores are from the AI's side) are safe to share.
+ * Every search the AI plays from is timed and recorded in metrics() (see
+ * SearchMetrics); speculative ones are not.
+ *
+ * Below Difficulty.PERFECT, moves come from an AnytimeSearch capped by the level.
+ *
+ * System properties:
+ * - gameof15.solution        : solution file to map (default gameof15.solution, if present)
+ * - gameof15.threads         : root search parallelism (1 = sequential)
+ * - gameof15.moveBudgetMillis: time limit for a PERFECT move without a solution
+ *                              table (default 0 = none); past it the AI plays the
+ *                              best move of the deepest search it finished
+ */
+final class GameEngine {
+
+    private final SolutionTable solutions;        // null => search every move
+    private final ParallelRootSearch parallel;    // null => sequential search
+    private final TranspositionTable aiOddTable = new TranspositionTable(20);
+    private final TranspositionTable aiEvenTable = new TranspositionTable(20);
+    private final SearchMetrics metrics = new SearchMetrics();
+    private final long moveBudgetMillis = Long.getLong("gameof15.moveBudgetMillis", 0);
+
+    GameEngine(SolutionTable solutions, int threads) {
+        this.solutions = solutions;
+        this.parallel = threads > 1 ? new ParallelRootSearch(threads) : null;
+    }
+
+    // Maps the solution file named by gameof15.solution, or returns null if there is none
+    static SolutionTable loadSolutions() throws IOException {
+        return SolutionTable.openIfPresent(solutionFile());
+    }
+
+    static Path solutionFile() {
+        return Path.of(System.getProperty("gameof15.solution", SolutionTable.DEFAULT_FILE));
+    }
+
+    static int threads(int defaultThreads) {
+        return Integer.getInteger("gameof15.threads", defaultThreads);
+    }
+
+    SolutionTable solutions() {
+        return solutions;
+    }
+
+    SearchMetrics metrics() {
+        return metrics;
+    }
+
+    // Fills out with the AI's equally best moves in pos (packed as BitBoard moves)
+    // and returns how many there are. The search statistics are added to stats,
+    // stats.score is set to the value of those moves for the AI.
+    int bestMoves(long pos, boolean aiIsOdd, int[] out, SearchStats stats) {
+        long start = System.nanoTime();
+        int n = search(pos, aiIsOdd, out, stats);
+        stats.wallNanos = System.nanoTime() - start;
+        stats.depth = BitBoard.pieceCount(pos);
+        metrics.record(stats);
+        return n;
+    }
+
+    private int search(long pos, boolean aiIsOdd, int[] out, SearchStats stats) {
+        if (solutions != null) {
+            stats.score = solutions.value(pos, aiIsOdd);
+            return solutions.bestMoves(pos, aiIsOdd, out);
+        }
+        int depth = BitBoard.pieceCount(pos);
+        TranspositionTable tt = aiIsOdd ? aiOddTable : aiEvenTable;
+        if (parallel != null) {
+            return parallel.bestMoves(pos, depth, !aiIsOdd, tt, out, stats);
+        }
+        MinimaxSearch search = new MinimaxSearch(!aiIsOdd, tt);
+        int n = search.bestMoves(pos, depth, out);
+        stats.add(search);
+        stats.score = search.bestScore;
+        return n;
+    }
+
+    // Exact value of every move of the side to move in pos, which must be a position
+    // the game goes on from (see SolutionTable.resolve()). Fills moves and values and
+    // returns how many there are; values are from the mover's point of view. Unlike
+    // bestMoves() every move gets a full window, and nothing is recorded in metrics(),
+    // which are about the AI's own moves.
+    int analyze(long pos, boolean moverIsOdd, int[] moves, int[] values, SearchStats stats) {
+        long start = System.nanoTime();
+        int depth = BitBoard.pieceCount(pos);
+        long lines = BitBoard.lines(pos);
+        int digits = BitBoard.availableDigits(pos, moverIsOdd);
+        // Scores are from the AI's side, so search as if the mover were the AI
+        MinimaxSearch search = solutions != null ? null
+            : new MinimaxSearch(!moverIsOdd, moverIsOdd ? aiOddTable : aiEvenTable);
+        int n = 0;
+        for (long cells = BitBoard.emptyCells(pos); cells != 0; cells &= cells - 1) {
+            int cell = BitBoard.cellAt(cells);
+            for (int ds = digits; ds != 0; ds &= ds - 1) {
+                int d = Integer.numberOfTrailingZeros(ds);
+                long child = BitBoard.place(pos, cell, d);
+                moves[n] = BitBoard.move(cell, d);
+                values[n++] = search == null
+                    ? -solutions.value(child, !moverIsOdd)
+                    : search.minimax(child, BitBoard.addToLines(lines, cell, d), cell, depth + 1, false,
+                        Integer.MIN_VALUE, Integer.MAX_VALUE);
+            }
+        }
+        if (search != null) {
+            stats.add(search);
+        }
+        stats.depth = depth;
+        stats.wallNanos = System.nanoTime() - start;
+        return n;
+    }
+
+    // Picks one of the AI's best moves in pos at random
+    int chooseMove(long pos, boolean aiIsOdd, Random rand, SearchStats stats) {
+        int[] out = new int[BitBoard.CELLS * 10];
+        int n = bestMoves(pos, aiIsOdd, out, stats);
+        return out[rand.nextInt(n)];
+    }
+
+    // Picks a move at the given strength. PERFECT is chooseMove() above, unless a
+    // move budget is set and there is no solution table to make it instant.
+    int chooseMove(long pos, boolean aiIsOdd, Difficulty difficulty, Random rand, SearchStats stats) {
+        if (difficulty == Difficulty.PERFECT && (moveBudgetMillis == 0 || solutions != null)) {
+            return chooseMove(pos, aiIsOdd, rand, stats);
+        }
+        return anytimeMove(pos, aiIsOdd, difficulty.maxPlies, budget(difficulty), difficulty.noise, rand, stats);
+    }
+
+    // A fresh budget with the limits chooseMove() gives a search at difficulty
+    SearchBudget budget(Difficulty difficulty) {
+        return difficulty == Difficulty.PERFECT && moveBudgetMillis != 0
+            ? SearchBudget.ofMillis(moveBudgetMillis) : difficulty.budget();
+    }
+
+    // The move chooseMove() would pick, for a search nobody may end up waiting for
+    // (see Ponderer), so nothing is recorded in metrics(). The caller records stats
+    // if the move is ever played. budget should come from budget(difficulty);
+    // cancelling it stops the search early. Short of a solution table lookup this is
+    // always an anytime search, also at PERFECT without a move budget, where
+    // deepening to the end of the game finds the same best moves as bestMoves().
+    int speculativeMove(long pos, boolean aiIsOdd, Difficulty difficulty, SearchBudget budget,
+                        Random rand, SearchStats stats) {
+        long start = System.nanoTime();
+        int move;
+        if (difficulty == Difficulty.PERFECT && solutions != null) {
+            int[] out = new int[BitBoard.CELLS * 10];
+            move = out[rand.nextInt(search(pos, aiIsOdd, out, stats))];
+        } else {
+            move = anytime(pos, aiIsOdd, difficulty.maxPlies, budget, difficulty.noise, rand, stats);
+        }
+        stats.wallNanos = System.nanoTime() - start;
+        stats.depth = BitBoard.pieceCount(pos);
+        return move;
+    }
+
+    // Iterative deepening up to maxPlies ahead or until the budget runs out, then
+    // the best root move of the deepest finished iteration after adding noise
+    // (see AnytimeSearch.choose())
+    int anytimeMove(long pos, boolean aiIsOdd, int maxPlies, SearchBudget budget, int noise,
+                    Random rand, SearchStats stats) {
+        long start = System.nanoTime();
+        int move = anytime(pos, aiIsOdd, maxPlies, budget, noise, rand, stats);
+        stats.wallNanos = System.nanoTime() - start;
+        stats.depth = BitBoard.pieceCount(pos);
+        metrics.record(stats);
+        return move;
+    }
+
+    private int anytime(long pos, boolean aiIsOdd, int maxPlies, SearchBudget budget, int noise,
+                        Random rand, SearchStats stats) {
+        AnytimeSearch search = new AnytimeSearch(!aiIsOdd, aiIsOdd ? aiOddTable : aiEvenTable);
+        search.search(pos, maxPlies, budget, noise > 0, stats);
+        return search.choose(rand, noise);
+    }
+
+    void shutdown() {
+        if (parallel != null) {
+            parallel.shutdown();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+
+/**
+ * GameJournal.java
+ *
+ * Append-only file of finished games, one GameRecord long each, for auditing and
+ * opening statistics without a database.
+ *
+ * Usage: java GameJournal [file]   (default: gameof15.journal)
+ * prints the games in the file by parity and turn order, and how each first move
+ * turned out.
+ *
+ * File layout (big-endian): int magic, int version, long reserved, then 8-byte
+ * records. Records are collected in a direct buffer and written through the
+ * file channel BATCH at a time; the file is fsynced once syncRecords records have
+ * been written since the last time (0 = only in sync() and close()), so a crash
+ * loses at most the unsynced tail. A torn record at the end is cut off when the
+ * file is opened again. Thread-safe; appends are serialized.
+ *
+ * read() maps the file read-only a window at a time and hands every record to a
+ * callback, so going through hundreds of millions of games is a sequential scan
+ * of the page cache with no per-record allocation.
+ */
+final class GameJournal implements Closeable {
+
+    static final String DEFAULT_FILE = "gameof15.journal";
+
+    private static final int MAGIC = 0x4731354A;   // "G15J"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int BATCH = 4096;                  // records per write
+    private static final long WINDOW_BYTES = 1L << 27;      // mapped at a time by read()
+
+    private final FileChannel channel;
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH * 8);
+    private final long syncRecords;
+    private long unsynced;      // records written to the channel since the last fsync
+
+    private GameJournal(FileChannel channel, long syncRecords) {
+        this.channel = channel;
+        this.syncRecords = syncRecords;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args.length > 0 ? args[0] : DEFAULT_FILE);
+        long start = System.nanoTime();
+        Summary summary = new Summary();
+        long games = read(file, summary);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "%d games read from %s in %.2f s (%.1fM games/s)%n",
+            games, file, seconds, games / Math.max(seconds, 1e-9) / 1e6);
+        System.out.print(summary);
+    }
+
+    // Opens file for appending, creating it if needed
+    static GameJournal open(Path file, long syncRecords) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            if (ch.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putLong(0).flip();
+                while (header.hasRemaining()) ch.write(header);
+                ch.force(true);
+            } else {
+                checkHeader(ch, file);
+                long whole = HEADER_BYTES + (ch.size() - HEADER_BYTES) / 8 * 8;
+                if (whole != ch.size()) {
+                    ch.truncate(whole);
+                }
+            }
+            ch.position(ch.size());
+            return new GameJournal(ch, syncRecords);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    synchronized void append(long record) throws IOException {
+        batch.putLong(record);
+        if (!batch.hasRemaining()) {
+            write();
+        }
+    }
+
+    // Writes out the batch and fsyncs whatever hasn't been
+    synchronized void sync() throws IOException {
+        write();
+        if (unsynced > 0) {
+            channel.force(false);
+            unsynced = 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) return;
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Caller holds the lock
+    private void write() throws IOException {
+        if (batch.position() == 0) return;
+        batch.flip();
+        unsynced += batch.remaining() / 8;
+        while (batch.hasRemaining()) channel.write(batch);
+        batch.clear();
+        if (syncRecords > 0 && unsynced >= syncRecords) {
+            channel.force(false);
+            unsynced = 0;
+        }
+    }
+
+    // Hands every record in file to visitor, in order, and returns how many there were
+    static long read(Path file, LongConsumer visitor) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            checkHeader(ch, file);
+            long end = HEADER_BYTES + (ch.size() - HEADER_BYTES) / 8 * 8;
+            long count = 0;
+            for (long at = HEADER_BYTES; at < end; at += WINDOW_BYTES) {
+                long size = Math.min(WINDOW_BYTES, end - at);
+                LongBuffer records = ch.map(FileChannel.MapMode.READ_ONLY, at, size).asLongBuffer();
+                for (int i = 0, n = records.limit(); i < n; i++) {
+                    visitor.accept(records.get(i));
+                }
+                count += records.limit();
+            }
+            return count;
+        }
+    }
+
+    private static void checkHeader(FileChannel ch, Path file) throws IOException {
+        if (ch.size() < HEADER_BYTES) {
+            throw new IOException("Not a Game of 15 journal: " + file);
+        }
+        ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a Game of 15 journal: " + file);
+        }
+    }
+
+    // Counts for main(): results by parity and turn order, and by first move, with
+    // the first move folded onto its cell class (corner, edge, center) by symmetry
+    static final class Summary implements LongConsumer {
+        private static final String[] CLASS_NAMES = {"corner", "edge", "center"};
+
+        final long[][] results = new long[4][4];    // by human parity and order, then result
+        final long[][] openings = new long[30][4];  // by cell class * 10 + digit, then result
+        long moves;
+        long games;
+
+        @Override
+        public void accept(long record) {
+            int result = GameRecord.result(record);
+            int n = GameRecord.moveCount(record);
+            results[(GameRecord.humanIsOdd(record) ? 0 : 2) + (GameRecord.humanFirst(record) ? 0 : 1)][result]++;
+            if (n > 0) {
+                int first = GameRecord.move(record, 0);
+                openings[cellClass(BitBoard.moveCell(first)) * 10 + BitBoard.moveDigit(first)][result]++;
+            }
+            moves += n;
+            games++;
+        }
+
+        private static int cellClass(int cell) {
+            return cell == 4 ? 2 : (cell & 1) == 0 ? 0 : 1;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "%.2f moves per game%n%n", (double) moves / Math.max(1, games)));
+            sb.append(String.format(Locale.ROOT, "%-16s %10s %10s %10s %10s%n",
+                "human plays", "odd won", "even won", "tie", "ongoing"));
+            for (int c = 0; c < 4; c++) {
+                long[] r = results[c];
+                sb.append(String.format(Locale.ROOT, "%-16s %10d %10d %10d %10d%n",
+                    ((c & 2) == 0 ? "odd" : "even") + ((c & 1) == 0 ? ", first" : ", second"),
+                    r[GameRecord.ODD_WON], r[GameRecord.EVEN_WON], r[GameRecord.TIE], r[GameRecord.ONGOING]));
+            }
+            sb.append(String.format(Locale.ROOT, "%n%-16s %10s %10s %10s %10s%n",
+                "first move", "odd won", "even won", "tie", "ongoing"));
+            for (int o = 0; o < openings.length; o++) {
+                long[] r = openings[o];
+                if (r[0] + r[1] + r[2] + r[3] == 0) continue;
+                sb.append(String.format(Locale.ROOT, "%-16s %10d %10d %10d %10d%n",
+                    (o % 10) + " in " + CLASS_NAMES[o / 10],
+                    r[GameRecord.ODD_WON], r[GameRecord.EVEN_WON], r[GameRecord.TIE], r[GameRecord.ONGOING]));
+            }
+            return sb.toString();
+        }
+    }
+}
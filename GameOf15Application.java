@@ -0,0 +1,95 @@
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * GameOf15Application.java
+ *
+ * Spring Boot entry point for the stateless move service (see MoveController).
+ * Requests are served on virtual threads, so thousands of concurrent games don't
+ * each hold a platform thread. index.html and style.css are served from /.
+ *
+ * The sources live in the default package, so component scanning is left off
+ * (it would scan the whole classpath) and the controller is imported explicitly.
+ *
+ * The engine searches each request on its own thread (-Dgameof15.threads=1 by
+ * default here); requests already run in parallel, and a solution table makes
+ * every move a lookup (see SolutionTable).
+ *
+ * Search metrics are exported over JMX (gameof15:type=SearchMetrics) and as
+ * Micrometer meters (see SearchMeterBinder), readable at /actuator/metrics.
+ *
+ * Server-side games (SessionController) are capped by -Dgameof15.sessions.max
+ * (default 1,000,000) and expire after -Dgameof15.sessions.ttlSeconds of idling
+ * (default 1800); expired ones are swept once a minute.
+ *
+ * The AI ponders the human's replies between requests (see Ponderer) on
+ * -Dgameof15.ponderThreads threads (default half the cores, 0 = off), keeping at
+ * most -Dgameof15.ponderSessions games' worth of searches (default 16384, a few
+ * KB each).
+ *
+ * Hints (AnalysisController) are cached for -Dgameof15.analysisCache positions
+ * (default 16384, 0 = off).
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@Import({MoveController.class, SessionController.class, AnalysisController.class})
+public class GameOf15Application {
+
+    public static void main(String[] args) {
+        SpringApplication app = new SpringApplication(GameOf15Application.class);
+        app.setDefaultProperties(Map.of(
+            "spring.threads.virtual.enabled", "true",
+            "management.endpoints.web.exposure.include", "health,metrics"));
+        app.run(args);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    GameEngine gameEngine() throws IOException {
+        GameEngine engine = new GameEngine(GameEngine.loadSolutions(), GameEngine.threads(1));
+        engine.metrics().registerMBean();
+        return engine;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    Ponderer ponderer(GameEngine engine) {
+        int threads = Integer.getInteger("gameof15.ponderThreads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        return new Ponderer(engine, threads, Integer.getInteger("gameof15.ponderSessions", 16384));
+    }
+
+    @Bean
+    MoveAnalyzer moveAnalyzer(GameEngine engine) {
+        return new MoveAnalyzer(engine, Integer.getInteger("gameof15.analysisCache", 16384));
+    }
+
+    @Bean
+    SearchMeterBinder searchMeterBinder(GameEngine engine, Ponderer ponderer, MoveAnalyzer analyzer) {
+        return new SearchMeterBinder(engine.metrics(), ponderer, analyzer);
+    }
+
+    @Bean
+    SessionStore sessionStore() {
+        return new SessionStore(Integer.getInteger("gameof15.sessions.max", 1_000_000),
+            Integer.getInteger("gameof15.sessions.ttlSeconds", 1800));
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    ScheduledExecutorService sessionSweeper(SessionStore store) {
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(store::sweep, 1, 1, TimeUnit.MINUTES);
+        return sweeper;
+    }
+}
@@ -0,0 +1,380 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * GameOf15ZeroForBoth.java
+ *
+ * A Game of 15 variant where:
+ * - Empty cells are stored as 0xF in the packed BitBoard (displayed as "0").
+ * - If human picks ODD, allowed digits are {1,3,5,7,9} plus 0 (if unused).
+ * - If human picks EVEN, allowed digits are {2,4,6,8} plus 0 (if unused).
+ * - The AI automatically gets the opposite set (also +0 if unused).
+ * - Each digit can only be used once total, including 0.
+ *
+ * Full-depth minimax with alpha-beta pruning is used for the AI moves, unless a
+ * precomputed solution file (see SolutionTable) is available, in which case the
+ * AI move is a table lookup. Set -Dgameof15.solution=<file> to point at it.
+ * Root moves are searched in parallel on -Dgameof15.threads=<n> threads
+ * (default: all cores, 1 = sequential). The move selection itself lives in
+ * GameEngine; this class is the console front end.
+ *
+ * The AI plays through a MoveStrategy. -Dgameof15.strategy=mcts swaps minimax for
+ * Monte Carlo tree search with -Dgameof15.mctsMillis=<ms> per move (default 500)
+ * on the same number of threads. -Dgameof15.seed=<n> makes the AI's random choices
+ * repeatable (see Tournament for headless, reproducible self-play).
+ *
+ * While you think, minimax ponders your possible replies on
+ * -Dgameof15.ponderThreads=<n> threads (default: all cores, 0 = off; see Ponderer),
+ * so its answer is usually ready when you move. Pondered moves break ties with
+ * their own randomness, so with a seed set pondering is off by default.
+ *
+ * Typing "hint" instead of a move lists your moves with what each leads to
+ * under perfect play (see MoveAnalyzer).
+ *
+ * With -Dgameof15.journal=<file> every finished game is appended to that file
+ * (see GameJournal); java GameJournal <file> sums them up.
+ */
+public class GameOf15ZeroForBoth {
+
+    private long position = BitBoard.EMPTY;    // packed cells + used digits, see BitBoard
+    private Scanner sc = new Scanner(System.in);
+    private Random rand = newRandom();
+
+    private int moveCount = 0;  // how many moves have been made (0..9)
+    private long counter = 0;   // nodes searched (playouts for MCTS)
+    private long ttHits = 0;    // transposition table probes that found the position
+    private long ttMisses = 0;  // transposition table probes that didn't
+
+    private GameEngine engine;
+    private Ponderer ponderer;
+    private MoveAnalyzer analyzer;
+    private GameJournal journal;    // null => games aren't kept
+    private long record;            // the game so far, see GameRecord
+    private MoveStrategy strategy;
+
+    // Selections
+    private boolean humanIsOdd;   // if true => user can pick odd digits + 0
+    private boolean humanFirst;   // if true => user goes first
+    private Difficulty difficulty = Difficulty.PERFECT;
+
+    public static void main(String[] args) {
+        GameOf15ZeroForBoth game = new GameOf15ZeroForBoth();
+        game.startGame();
+    }
+
+    public void startGame() {
+        System.out.println("\n--- Game of 15 with 0 for Both Sides ---");
+        setUpEngine();
+
+        // Order selection
+        System.out.print("Who goes first? (Enter 'human' or 'ai'): ");
+        String order = sc.nextLine().trim().toLowerCase();
+        humanFirst = order.equals("human");
+
+        // Parity selection
+        System.out.print("Choose your digit set (Enter 'odd' or 'even'): ");
+        String parity = sc.nextLine().trim().toLowerCase();
+        if (parity.equals("odd")) {
+            humanIsOdd = true;
+        } else {
+            humanIsOdd = false;
+        }
+
+        // Difficulty selection
+        System.out.print("Choose AI difficulty (easy, medium, hard, perfect): ");
+        String level = sc.nextLine().trim();
+        try {
+            difficulty = Difficulty.parse(level);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown difficulty, playing perfect.");
+        }
+        strategy = createStrategy();
+        System.out.println("AI strategy: " + strategy.name());
+
+        // Show info
+        if (humanIsOdd) {
+            System.out.println("You are ODD => {1,3,5,7,9} + 0 (if not used).");
+        } else {
+            System.out.println("You are EVEN => {2,4,6,8} + 0 (if not used).");
+        }
+        System.out.println(humanFirst ? "You go first." : "AI goes first.");
+        System.out.println("-------------------------------------------");
+
+        while (true) {
+            resetBoard();
+            playMatch();
+            System.out.print("Enter 1 to play again, 0 to exit: ");
+            int choice = sc.nextInt();
+            sc.nextLine();
+            if (choice != 1) {
+                System.out.println("Thanks for playing!");
+                break;
+            }
+        }
+        strategy.shutdown();
+        closeJournal();
+        ponderer.shutdown();
+        engine.shutdown();
+        sc.close();
+    }
+
+    // Set up the engine, mapping the solution file if one has been generated
+    private void setUpEngine() {
+        SolutionTable solutions = null;
+        try {
+            solutions = GameEngine.loadSolutions();
+        } catch (IOException e) {
+            System.out.println("Ignoring solution table: " + e.getMessage());
+        }
+        if (solutions != null) {
+            System.out.println("Using solution table " + GameEngine.solutionFile() +
+                " (" + solutions.size() + " positions).");
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        engine = new GameEngine(solutions, GameEngine.threads(cores));
+        engine.metrics().registerMBean();
+        int ponderThreads = Integer.getInteger("gameof15.ponderThreads",
+            System.getProperty("gameof15.seed") != null ? 0 : cores);
+        ponderer = new Ponderer(engine, ponderThreads, 1);
+        analyzer = new MoveAnalyzer(engine, 1024);
+        String journalFile = System.getProperty("gameof15.journal");
+        if (journalFile != null) {
+            try {
+                journal = GameJournal.open(Path.of(journalFile), 0);
+            } catch (IOException e) {
+                System.out.println("Not keeping games: " + e.getMessage());
+            }
+        }
+    }
+
+    // Appends the finished game to the journal, if there is one
+    private void recordGame() {
+        if (journal == null) return;
+        int result = GameRecord.TIE;
+        if (BitBoard.hasLine15(position)) {
+            // Whoever moved last completed the line
+            boolean lastMoverIsOdd = GameRecord.moverIsOdd(record, GameRecord.moveCount(record) - 1);
+            result = lastMoverIsOdd ? GameRecord.ODD_WON : GameRecord.EVEN_WON;
+        }
+        try {
+            journal.append(GameRecord.finish(record, result));
+            journal.sync();
+        } catch (IOException e) {
+            System.out.println("Couldn't record the game: " + e.getMessage());
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Couldn't close the journal: " + e.getMessage());
+        }
+    }
+
+    // Seeded from gameof15.seed if set, so a session can be replayed
+    private static Random newRandom() {
+        Long seed = Long.getLong("gameof15.seed");
+        return seed != null ? new Random(seed) : new Random();
+    }
+
+    // Minimax at the chosen difficulty, unless -Dgameof15.strategy=mcts
+    private MoveStrategy createStrategy() {
+        String name = System.getProperty("gameof15.strategy", "minimax");
+        if (name.equalsIgnoreCase("mcts")) {
+            int threads = GameEngine.threads(Runtime.getRuntime().availableProcessors());
+            MctsSearch search = new MctsSearch(MagicSumRules.of(3), threads, rand.nextLong());
+            return new MctsStrategy(search, Long.getLong("gameof15.mctsMillis", 500), Long.MAX_VALUE,
+                engine.metrics());
+        }
+        return new MinimaxStrategy(engine, difficulty, ponderer);
+    }
+
+    // Clear the board and used digits, reset move count.
+    private void resetBoard() {
+        position = BitBoard.EMPTY;
+        moveCount = 0;
+        record = GameRecord.start(humanIsOdd, humanFirst);
+    }
+
+    private void playMatch() {
+        // If AI goes first, do so now
+        if (!humanFirst) {
+            aiMove();
+            moveCount++;
+            printBoard();
+        }
+        // Main loop
+        while (true) {
+            if (evaluate(position)) {
+                if (didHumanWin()) {
+                    System.out.println("Congratulations, you win!");
+                } else {
+                    System.out.println("AI wins! Better luck next time.");
+                }
+                break;
+            }
+            if (moveCount == 9) {
+                System.out.println("It's a tie!");
+                break;
+            }
+            // The side that went second can run out of digits once 0 is taken
+            boolean moverIsOdd = isHumanTurn() ? humanIsOdd : !humanIsOdd;
+            if (BitBoard.availableDigits(position, moverIsOdd) == 0) {
+                System.out.println("No digits left to play. It's a tie!");
+                break;
+            }
+            if (isHumanTurn()) {
+                humanMove();
+            } else {
+                aiMove();
+            }
+            moveCount++;
+            printBoard();
+        }
+        recordGame();
+    }
+
+    // Decide if it's the human's turn based on moveCount and order selection.
+    private boolean isHumanTurn() {
+        int turn = moveCount + 1;  // turn numbers start at 1
+        if (humanFirst) {
+            return (turn % 2 != 0);
+        } else {
+            return (turn % 2 == 0);
+        }
+    }
+
+    // Human move: row col digit
+    private void humanMove() {
+        System.out.println("Your move. (Allowed digits: " +
+            (humanIsOdd ? "{1,3,5,7,9}+0" : "{2,4,6,8}+0") + " if unused)");
+        while (true) {
+            System.out.print("Enter row(0-2), col(0-2), digit (or 'hint'): ");
+            String line = sc.nextLine().trim();
+            if (line.equalsIgnoreCase("hint")) {
+                printHint();
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (parts.length != 3) {
+                System.out.println("Please enter exactly three integers.");
+                continue;
+            }
+            int r, c, d;
+            try {
+                r = Integer.parseInt(parts[0]);
+                c = Integer.parseInt(parts[1]);
+                d = Integer.parseInt(parts[2]);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input. Try again.");
+                continue;
+            }
+            if (!isValidMove(r, c, d, humanIsOdd)) {
+                continue;
+            }
+            position = BitBoard.place(position, r * 3 + c, d);
+            record = GameRecord.withMove(record, BitBoard.move(r * 3 + c, d));
+            break;
+        }
+    }
+
+    // Every human move with its outcome under perfect play, best first
+    private void printHint() {
+        MoveAnalyzer.Analysis analysis = analyzer.analyze(position, humanIsOdd);
+        for (int i = 0; i < analysis.moves().length; i++) {
+            int move = analysis.moves()[i];
+            int value = analysis.values()[i];
+            int cell = BitBoard.moveCell(move);
+            String outcome = value == 0 ? "tie"
+                : (value > 0 ? "you win" : "AI wins") + " on move " + MoveAnalyzer.decidedOnMove(value);
+            System.out.println("  " + cell / 3 + " " + cell % 3 + " " + BitBoard.moveDigit(move) + "  -> " + outcome);
+        }
+    }
+
+    // AI move: whatever the strategy picks (randomly among equally good moves)
+    private void aiMove() {
+        boolean aiIsOdd = !humanIsOdd;
+        System.out.println("AI's move (" + (aiIsOdd ? "ODD+0" : "EVEN+0") + "):");
+        SearchStats stats = new SearchStats();
+        int best = strategy.chooseMove(position, aiIsOdd, rand, stats);
+        counter = stats.nodes;
+        ttHits = stats.ttHits;
+        ttMisses = stats.ttMisses;
+        int cell = BitBoard.moveCell(best);
+        int digit = BitBoard.moveDigit(best);
+        position = BitBoard.place(position, cell, digit);
+        record = GameRecord.withMove(record, best);
+        System.out.println("AI placed " + digit + " at (" + cell / 3 + "," + cell % 3 + ")");
+        System.out.println("Nodes searched: " + counter + ", TT hits: " + ttHits +
+            ", TT misses: " + ttMisses + ", Time: " + stats.wallNanos / 1_000_000 + " ms" +
+            ", Nodes/s: " + stats.positionsPerSecond());
+        System.out.println("Cutoffs: " + stats.cutoffs + " (" + stats.firstMoveCutoffs + " on the first move)" +
+            ", Max depth: " + stats.maxDepth +
+            (stats.plies > 0 ? ", Looked ahead: " + stats.plies + " plies" : ""));
+    }
+
+    // Check if the move is valid for the current parity (isOdd).
+    // isOdd => {1,3,5,7,9} plus 0 if not used
+    // !isOdd => {2,4,6,8} plus 0 if not used
+    private boolean isValidMove(int r, int c, int d, boolean isOdd) {
+        if (r < 0 || r > 2 || c < 0 || c > 2) {
+            System.out.println("Row/Col must be 0..2.");
+            return false;
+        }
+        if (!BitBoard.isEmpty(position, r * 3 + c)) {
+            System.out.println("That cell is already occupied!");
+            return false;
+        }
+        if (d < 0 || d > 9) {
+            System.out.println("Digit must be between 0 and 9.");
+            return false;
+        }
+        // Check if digit is in the correct set
+        if (isOdd) {
+            // odd digits => 1,3,5,7,9 plus 0 if not used
+            if (d != 0 && (d < 1 || d > 9 || d % 2 == 0)) {
+                System.out.println("You are ODD. Allowed digits: {1,3,5,7,9} plus 0 (if unused).");
+                return false;
+            }
+        } else {
+            // even digits => 2,4,6,8 plus 0 if not used
+            if (d != 0 && (d < 2 || d > 8 || d % 2 != 0)) {
+                System.out.println("You are EVEN. Allowed digits: {2,4,6,8} plus 0 (if unused).");
+                return false;
+            }
+        }
+        // Check usage
+        if (BitBoard.isUsed(position, d)) {
+            System.out.println("That digit is already used!");
+            return false;
+        }
+        return true;
+    }
+
+    // Evaluate if there's a line summing to 15 with no empty cell
+    private boolean evaluate(long state) {
+        return BitBoard.hasLine15(state);
+    }
+
+    // The game stops as soon as a line hits 15, so whoever moved last won
+    private boolean didHumanWin() {
+        return !isHumanTurn();
+    }
+
+    // Print the board to console, showing 0 if cell is empty
+    private void printBoard() {
+        System.out.println("Current board:");
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                int v = BitBoard.cell(position, i * 3 + j);
+                System.out.print((v == BitBoard.EMPTY_CELL ? 0 : v) + " ");
+            }
+            System.out.println();
+        }
+        System.out.println();
+    }
+}
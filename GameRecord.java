@@ -0,0 +1,95 @@
+/**
+ * GameRecord.java
+ *
+ * A whole game packed into one long, for GameJournal:
+ *   bits 0..3   moves played (0..9)
+ *   bit  4      the human played odd
+ *   bit  5      the human moved first
+ *   bits 6..7   result: ONGOING (abandoned), ODD_WON, EVEN_WON or TIE
+ *   bits 8..61  move i in bits 8 + 6i: cell * 6 + digit index
+ *
+ * The parity and turn order say which digit set each move came from, so a move
+ * only needs the digit's index in that set (odd: 0,1,3,5,7,9; even: 0,2,4,6,8),
+ * which is (d + 1) / 2 for odd digits and d / 2 for even ones. In tournaments the
+ * "human" is side A.
+ *
+ * Built one move at a time with start() / withMove() / finish() and read back
+ * with the accessors; nothing is checked beyond what fits, the game loop has
+ * already made sure the moves are legal.
+ */
+final class GameRecord {
+
+    static final int ONGOING = 0;
+    static final int ODD_WON = 1;
+    static final int EVEN_WON = 2;
+    static final int TIE = 3;
+    static final String[] RESULT_NAMES = {"ongoing", "oddWon", "evenWon", "tie"};
+
+    private static final int HUMAN_ODD_BIT = 1 << 4;
+    private static final int HUMAN_FIRST_BIT = 1 << 5;
+    private static final int RESULT_SHIFT = 6;
+    private static final int MOVES_SHIFT = 8;
+    private static final int MOVE_BITS = 6;
+
+    private GameRecord() {
+    }
+
+    static long start(boolean humanIsOdd, boolean humanFirst) {
+        return (humanIsOdd ? HUMAN_ODD_BIT : 0) | (humanFirst ? HUMAN_FIRST_BIT : 0);
+    }
+
+    // Appends a BitBoard move by the side whose turn it is
+    static long withMove(long record, int move) {
+        int n = moveCount(record);
+        if (n == BitBoard.CELLS) {
+            throw new IllegalStateException("Game already has 9 moves");
+        }
+        int digit = BitBoard.moveDigit(move);
+        int code = BitBoard.moveCell(move) * 6 + (moverIsOdd(record, n) ? (digit + 1) / 2 : digit / 2);
+        return (record | (long) code << (MOVES_SHIFT + n * MOVE_BITS)) + 1;
+    }
+
+    static long finish(long record, int result) {
+        return record & ~(3L << RESULT_SHIFT) | (long) result << RESULT_SHIFT;
+    }
+
+    static int moveCount(long record) {
+        return (int) record & 0xF;
+    }
+
+    static boolean humanIsOdd(long record) {
+        return (record & HUMAN_ODD_BIT) != 0;
+    }
+
+    static boolean humanFirst(long record) {
+        return (record & HUMAN_FIRST_BIT) != 0;
+    }
+
+    static int result(long record) {
+        return (int) (record >>> RESULT_SHIFT) & 3;
+    }
+
+    // Whether move i (0-based) was played with odd digits
+    static boolean moverIsOdd(long record, int i) {
+        boolean humanMoves = ((i & 1) == 0) == humanFirst(record);
+        return humanMoves == humanIsOdd(record);
+    }
+
+    // Move i as a BitBoard move
+    static int move(long record, int i) {
+        int code = (int) (record >>> (MOVES_SHIFT + i * MOVE_BITS)) & ((1 << MOVE_BITS) - 1);
+        int index = code % 6;
+        int digit = index == 0 ? 0 : moverIsOdd(record, i) ? 2 * index - 1 : 2 * index;
+        return BitBoard.move(code / 6, digit);
+    }
+
+    // The position after the first plies moves
+    static long position(long record, int plies) {
+        long pos = BitBoard.EMPTY;
+        for (int i = 0; i < plies; i++) {
+            int move = move(record, i);
+            pos = BitBoard.place(pos, BitBoard.moveCell(move), BitBoard.moveDigit(move));
+        }
+        return pos;
+    }
+}
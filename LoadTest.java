@@ -0,0 +1,308 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LoadTest.java
+ *
+ * Capacity check for the move service: many simulated players each play whole
+ * games against a server on this machine through POST /api/move, and the run
+ * reports throughput, move latency percentiles and errors.
+ *
+ * Usage: java LoadTest [clients] [seconds] [thinkMillis] [oddShare] [firstShare] [difficulty] [url]
+ * - clients    : concurrent players (default 1000)
+ * - seconds    : how long to run (default 30)
+ * - thinkMillis: mean pause before each human move and between games, drawn
+ *                uniformly from 0..2x (default 200; 0 = none)
+ * - oddShare   : share of games where the human plays odd (default 0.5)
+ * - firstShare : share of games where the human moves first (default 0.5)
+ * - difficulty : easy, medium, hard or perfect (default perfect)
+ * - url        : the service (default http://localhost:8080); only loopback
+ *                addresses are accepted, so a run never leaves the machine
+ *
+ * Start the service first (mvn -f gameof15.xml spring-boot:run). Players are
+ * asynchronous (HttpClient.sendAsync plus one timer thread for think time), so
+ * thousands of them need no thread each. The human's moves are random legal ones.
+ *
+ * Latency is from sending a request to having the whole response, recorded in a
+ * LatencyHistogram (under 1% error) only for moves served: 2xx answers that
+ * legally continue the game. Failed requests go to a histogram of their own, so
+ * 10 s timeouts and quick 4xx/5xx answers don't skew the move percentiles. Players wait for each answer before
+ * thinking and moving again (a closed loop), so latencies are those at the
+ * concurrency the server actually kept up with; compare throughput across runs too.
+ * Errors are counted by kind: http (non-2xx answer), timeout, io (connection
+ * failures) and protocol (an answer that isn't a legal continuation of the game),
+ * against every request that completed.
+ * A player whose request fails starts a new game.
+ */
+final class LoadTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final int REPORT_SECONDS = 5;
+
+    private final HttpClient http;
+    private final URI moveUri;
+    private final long thinkMillis;
+    private final double oddShare;
+    private final double firstShare;
+    private final String difficulty;
+    private final ScheduledExecutorService timer;
+
+    private final LatencyHistogram latency = new LatencyHistogram();        // moves served
+    private final LatencyHistogram errorLatency = new LatencyHistogram();   // failed requests
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder httpErrors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder ioErrors = new LongAdder();
+    private final LongAdder protocolErrors = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile boolean stopping;
+    private CountDownLatch stopped;
+
+    LoadTest(URI base, long thinkMillis, double oddShare, double firstShare, String difficulty) {
+        this.moveUri = base.resolve("/api/move");
+        this.thinkMillis = thinkMillis;
+        this.oddShare = oddShare;
+        this.firstShare = firstShare;
+        this.difficulty = difficulty;
+        this.http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(REQUEST_TIMEOUT)
+            .build();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "load-timer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long think = args.length > 2 ? Long.parseLong(args[2]) : 200;
+        double oddShare = args.length > 3 ? Double.parseDouble(args[3]) : 0.5;
+        double firstShare = args.length > 4 ? Double.parseDouble(args[4]) : 0.5;
+        String difficulty = Difficulty.parse(args.length > 5 ? args[5] : null).name().toLowerCase(Locale.ROOT);
+        URI base = URI.create(args.length > 6 ? args[6] : "http://localhost:8080");
+        checkLocal(base);
+
+        LoadTest test = new LoadTest(base, think, oddShare, firstShare, difficulty);
+        System.out.printf(Locale.ROOT, "%d clients for %d s against %s, think %d ms, odd %.2f, first %.2f, %s%n",
+            clients, seconds, base, think, oddShare, firstShare, difficulty);
+        long nanos = test.run(clients, seconds);
+        System.out.print(test.summary(nanos / 1e9));
+    }
+
+    // Capacity runs stay on this machine
+    static void checkLocal(URI base) throws IOException {
+        String host = base.getHost();
+        if (host == null || !InetAddress.getByName(host).isLoopbackAddress()) {
+            throw new IllegalArgumentException("LoadTest only runs against localhost, not " + base);
+        }
+    }
+
+    // Runs clients players for seconds, printing progress; returns the elapsed nanos
+    long run(int clients, int seconds) throws InterruptedException {
+        stopped = new CountDownLatch(clients);
+        long seed = System.nanoTime();
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            Player player = new Player(new SplittableRandom(seed + i));
+            // Spread the first requests over one think time instead of a thundering herd
+            timer.schedule(player::newGame, thinkMillis == 0 ? 0 : player.rand.nextLong(thinkMillis + 1),
+                TimeUnit.MILLISECONDS);
+        }
+        long lastMoves = 0;
+        for (int s = REPORT_SECONDS; s <= seconds; s += REPORT_SECONDS) {
+            Thread.sleep(REPORT_SECONDS * 1000L);
+            long m = moves.sum();
+            System.out.printf(Locale.ROOT, "%5d s %10.0f moves/s %10d games %8d errors %6d in flight%n",
+                s, (m - lastMoves) / (double) REPORT_SECONDS, games.sum(), errors(), inFlight.get());
+            lastMoves = m;
+        }
+        Thread.sleep(seconds % REPORT_SECONDS * 1000L);
+        long elapsed = System.nanoTime() - start;
+        stopping = true;
+        // Let the requests in flight finish, so they count and the server isn't left mid-answer
+        stopped.await(REQUEST_TIMEOUT.toMillis() + 1000, TimeUnit.MILLISECONDS);
+        timer.shutdownNow();
+        return elapsed;
+    }
+
+    private long errors() {
+        return httpErrors.sum() + timeouts.sum() + ioErrors.sum() + protocolErrors.sum();
+    }
+
+    String summary(double seconds) {
+        long requests = this.requests.sum();
+        long errors = errors();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%nmoves %d (%.0f/s), games %d (%.1f/s)%n",
+            moves.sum(), moves.sum() / seconds, games.sum(), games.sum() / seconds));
+        sb.append(String.format(Locale.ROOT, "latency ms: p50 %.3f  p95 %.3f  p99 %.3f  p999 %.3f  max %.3f  mean %.3f%n",
+            latency.percentile(0.5) / 1e6, latency.percentile(0.95) / 1e6, latency.percentile(0.99) / 1e6,
+            latency.percentile(0.999) / 1e6, latency.max() / 1e6, latency.mean() / 1e6));
+        sb.append(String.format(Locale.ROOT, "errors %d of %d requests (%.3f%%): http %d, timeout %d, io %d, protocol %d%n",
+            errors, requests, requests == 0 ? 0 : 100.0 * errors / requests,
+            httpErrors.sum(), timeouts.sum(), ioErrors.sum(), protocolErrors.sum()));
+        if (errors > 0) {
+            sb.append(String.format(Locale.ROOT, "error latency ms: p50 %.3f  p99 %.3f  max %.3f%n",
+                errorLatency.percentile(0.5) / 1e6, errorLatency.percentile(0.99) / 1e6, errorLatency.max() / 1e6));
+        }
+        return sb.toString();
+    }
+
+    // One simulated human; every step runs on an HttpClient or timer thread, one at a time
+    private final class Player {
+        final SplittableRandom rand;
+        boolean humanIsOdd;
+        boolean humanFirst;
+        long game;      // sent so the service ponders per game, as the web client does
+        long pos;
+
+        Player(SplittableRandom rand) {
+            this.rand = rand;
+        }
+
+        void newGame() {
+            humanIsOdd = rand.nextDouble() < oddShare;
+            humanFirst = rand.nextDouble() < firstShare;
+            game = rand.nextLong() | 1;
+            pos = BitBoard.EMPTY;
+            if (humanFirst) {
+                humanMove();
+            } else {
+                send();     // the AI opens on an empty board
+            }
+        }
+
+        void humanMove() {
+            int digits = BitBoard.availableDigits(pos, humanIsOdd);
+            long empty = BitBoard.emptyCells(pos);
+            int cell = BitBoard.cellAt(1L << nth(empty, rand.nextInt(Long.bitCount(empty))));
+            int digit = nth(digits, rand.nextInt(Integer.bitCount(digits)));
+            pos = BitBoard.place(pos, cell, digit);
+            send();
+        }
+
+        // Index of the nth (0-based) set bit of bits
+        private int nth(long bits, int n) {
+            for (int i = 0; i < n; i++) bits &= bits - 1;
+            return Long.numberOfTrailingZeros(bits);
+        }
+
+        void send() {
+            StringBuilder body = new StringBuilder(96).append("{\"board\":[");
+            for (int i = 0; i < BitBoard.CELLS; i++) {
+                int v = BitBoard.cell(pos, i);
+                if (i > 0) body.append(',');
+                body.append(v == BitBoard.EMPTY_CELL ? -1 : v);
+            }
+            body.append("],\"parity\":\"").append(humanIsOdd ? "odd" : "even")
+                .append("\",\"order\":\"").append(humanFirst ? "human" : "ai")
+                .append("\",\"difficulty\":\"").append(difficulty)
+                .append("\",\"game\":\"").append(Long.toHexString(game)).append("\"}");
+            HttpRequest request = HttpRequest.newBuilder(moveUri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+            long start = System.nanoTime();
+            inFlight.incrementAndGet();
+            http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, failure) -> {
+                    inFlight.decrementAndGet();
+                    requests.increment();
+                    onReply(response, failure, System.nanoTime() - start);
+                });
+        }
+
+        private void onReply(HttpResponse<String> response, Throwable failure, long nanos) {
+            if (failure != null) {
+                Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                (cause instanceof HttpTimeoutException ? timeouts : ioErrors).increment();
+                errorLatency.record(nanos);
+                think(this::newGame);
+                return;
+            }
+            if (response.statusCode() / 100 != 2) {
+                httpErrors.increment();
+                errorLatency.record(nanos);
+                think(this::newGame);
+                return;
+            }
+            String json = response.body();
+            String status = stringField(json, "status");
+            long next;
+            try {
+                next = BatchAnalyzer.parseBoard(json);
+            } catch (IllegalArgumentException e) {
+                next = -1;
+            }
+            if (status == null || next == -1 || !continues(next)) {
+                protocolErrors.increment();
+                errorLatency.record(nanos);
+                think(this::newGame);
+                return;
+            }
+            latency.record(nanos);
+            moves.increment();
+            pos = next;
+            if (status.equals("ongoing")) {
+                think(this::humanMove);
+            } else {
+                games.increment();
+                think(this::newGame);
+            }
+        }
+
+        // next is pos plus at most one AI piece of the AI's parity
+        private boolean continues(long next) {
+            for (int i = 0; i < BitBoard.CELLS; i++) {
+                int was = BitBoard.cell(pos, i);
+                if (was != BitBoard.EMPTY_CELL && BitBoard.cell(next, i) != was) return false;
+            }
+            int added = BitBoard.usedMask(next) & ~BitBoard.usedMask(pos);
+            return Integer.bitCount(added) <= 1
+                && (added & BitBoard.availableDigits(pos, !humanIsOdd)) == added
+                && BitBoard.pieceCount(next) - BitBoard.pieceCount(pos) == Integer.bitCount(added);
+        }
+
+        private void think(Runnable next) {
+            if (stopping) {
+                stopped.countDown();
+                return;
+            }
+            if (thinkMillis == 0) {
+                next.run();
+            } else {
+                timer.schedule(next, rand.nextLong(2 * thinkMillis + 1), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // The string value of "field": in json, or null
+    private static String stringField(String json, String field) {
+        int i = json.indexOf("\"" + field + "\"");
+        if (i < 0) return null;
+        i = json.indexOf('"', json.indexOf(':', i + field.length() + 2) + 1);
+        int end = i < 0 ? -1 : json.indexOf('"', i + 1);
+        return end < 0 ? null : json.substring(i + 1, end);
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MagicSumBoard.java
+ *
+ * Mutable position of a MagicSumRules game, updated incrementally by play()/undo():
+ * the digit in every cell, per-line sums and piece counts, the used-digit mask and
+ * a Zobrist hash of the cells (the same keys for every board of a size, so hashes
+ * can be compared across boards). Shared by MagicSumSearch and MctsSearch.
+ *
+ * Fields are package-private for the searches' inner loops; change them only
+ * through play()/undo()/set()/clear().
+ */
+final class MagicSumBoard {
+
+    final MagicSumRules rules;
+    final int[] cells;        // digit per cell, -1 if empty
+    final int[] lineSum;
+    final int[] lineCount;
+    long used;
+    int pieces;
+    long hash;
+
+    private final long[] zobrist;   // per (cell << 6 | digit)
+
+    MagicSumBoard(MagicSumRules rules) {
+        this.rules = rules;
+        cells = new int[rules.cells];
+        lineSum = new int[rules.lines.length];
+        lineCount = new int[rules.lines.length];
+        SplittableRandom rand = new SplittableRandom(0x15_15_15L + rules.size);
+        zobrist = new long[rules.cells << 6];
+        for (int i = 0; i < zobrist.length; i++) zobrist[i] = rand.nextLong();
+        clear();
+    }
+
+    void clear() {
+        Arrays.fill(cells, -1);
+        Arrays.fill(lineSum, 0);
+        Arrays.fill(lineCount, 0);
+        used = 0;
+        pieces = 0;
+        hash = 0;
+    }
+
+    // Sets the board from row-major cells, -1 for empty
+    void set(int[] digits) {
+        if (digits.length != rules.cells) {
+            throw new IllegalArgumentException("Board must have " + rules.cells + " cells");
+        }
+        clear();
+        for (int c = 0; c < digits.length; c++) {
+            int d = digits[c];
+            if (d == -1) continue;
+            if (d < 0 || d > rules.maxDigit || (used & (1L << d)) != 0) {
+                throw new IllegalArgumentException("Invalid or repeated digit " + d);
+            }
+            play(c, d);
+        }
+    }
+
+    void copyFrom(MagicSumBoard other) {
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        System.arraycopy(other.lineSum, 0, lineSum, 0, lineSum.length);
+        System.arraycopy(other.lineCount, 0, lineCount, 0, lineCount.length);
+        used = other.used;
+        pieces = other.pieces;
+        hash = other.hash;
+    }
+
+    boolean isEmpty(int cell) {
+        return cells[cell] == -1;
+    }
+
+    long availableDigits(boolean odd) {
+        return rules.pool(odd) & ~used;
+    }
+
+    void play(int cell, int digit) {
+        cells[cell] = digit;
+        for (int l : rules.cellLines[cell]) {
+            lineSum[l] += digit;
+            lineCount[l]++;
+        }
+        used |= 1L << digit;
+        pieces++;
+        hash ^= zobrist[cell << 6 | digit];
+    }
+
+    void undo(int cell) {
+        int digit = cells[cell];
+        cells[cell] = -1;
+        for (int l : rules.cellLines[cell]) {
+            lineSum[l] -= digit;
+            lineCount[l]--;
+        }
+        used &= ~(1L << digit);
+        pieces--;
+        hash ^= zobrist[cell << 6 | digit];
+    }
+
+    // True if some line is full and adds up to target
+    boolean hasWinningLine() {
+        for (int l = 0; l < rules.lines.length; l++) {
+            if (lineCount[l] == rules.size && lineSum[l] == rules.target) return true;
+        }
+        return false;
+    }
+
+    // Empty cells where one of digits completes a line to target
+    long winningCells(long digits) {
+        long result = 0;
+        for (int l = 0; l < rules.lines.length; l++) {
+            if (lineCount[l] != rules.size - 1) continue;
+            int need = rules.target - lineSum[l];
+            if (need < 0 || need > rules.maxDigit || (digits & (1L << need)) == 0) continue;
+            for (int c : rules.lines[l]) {
+                if (cells[c] == -1) {
+                    result |= 1L << c;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    // A digit from digits that completes a line through cell (one of winningCells)
+    int winningDigit(int cell, long digits) {
+        for (int l : rules.cellLines[cell]) {
+            int need = rules.target - lineSum[l];
+            if (lineCount[l] == rules.size - 1 && need >= 0 && need <= rules.maxDigit
+                    && (digits & (1L << need)) != 0) {
+                return need;
+            }
+        }
+        throw new IllegalStateException("No winning digit for cell " + cell);
+    }
+}
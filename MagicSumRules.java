@@ -0,0 +1,106 @@
+/**
+ * MagicSumRules.java
+ *
+ * Rules of a magic-sum game on a size x size board: players take turns placing
+ * unused digits from their own pool, and whoever completes a line (row, column or
+ * main diagonal) adding up to target wins. A player with no digits left ends the
+ * game in a tie, as does a full board.
+ *
+ * of(size) gives the standard variant: digits 0..size^2, target = the magic
+ * constant size * (size^2 + 1) / 2, one side odd digits and the other even, with
+ * 0 in both pools. of(3) is the classic Game of 15 (which BitBoard and
+ * MinimaxSearch solve exactly); of(4) is 4x4 with target 34 and digits 0..16.
+ *
+ * Digit pools are masks over 0..63, cells are numbered row-major. Line tables are
+ * built once per rules object; the standard ones are shared (see of()).
+ */
+final class MagicSumRules {
+
+    static final int MIN_SIZE = 3;
+    static final int MAX_SIZE = 7;    // size^2 + 1 digits must fit a 64-bit mask
+
+    private static final MagicSumRules[] STANDARD = new MagicSumRules[MAX_SIZE + 1];
+
+    static {
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++) {
+            int maxDigit = size * size;
+            long odd = 1, even = 1;    // 0 belongs to both sides
+            for (int d = 1; d <= maxDigit; d++) {
+                if (d % 2 != 0) odd |= 1L << d;
+                else even |= 1L << d;
+            }
+            STANDARD[size] = new MagicSumRules(size, size * (maxDigit + 1) / 2, maxDigit, odd, even);
+        }
+    }
+
+    final int size;
+    final int cells;
+    final int target;
+    final int maxDigit;
+    final long oddPool;      // digits of the side called "odd"
+    final long evenPool;     // digits of the other side
+    final int[][] lines;     // cells of every line: rows, columns, then the two diagonals
+    final int[][] cellLines; // indices into lines of the lines through each cell
+
+    MagicSumRules(int size, int target, int maxDigit, long oddPool, long evenPool) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be " + MIN_SIZE + ".." + MAX_SIZE);
+        }
+        if (maxDigit < 0 || maxDigit > 63) {
+            throw new IllegalArgumentException("Digits must be 0..63");
+        }
+        long digits = maxDigit == 63 ? -1L : (1L << (maxDigit + 1)) - 1;
+        if ((oddPool & ~digits) != 0 || (evenPool & ~digits) != 0) {
+            throw new IllegalArgumentException("Pools may only hold digits 0.." + maxDigit);
+        }
+        this.size = size;
+        this.cells = size * size;
+        this.target = target;
+        this.maxDigit = maxDigit;
+        this.oddPool = oddPool;
+        this.evenPool = evenPool;
+        this.lines = buildLines(size);
+        this.cellLines = buildCellLines(lines, cells);
+    }
+
+    // Standard variant for the board size, see class comment
+    static MagicSumRules of(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be " + MIN_SIZE + ".." + MAX_SIZE);
+        }
+        return STANDARD[size];
+    }
+
+    long pool(boolean odd) {
+        return odd ? oddPool : evenPool;
+    }
+
+    private static int[][] buildLines(int size) {
+        int[][] lines = new int[2 * size + 2][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                lines[i][j] = i * size + j;              // row i
+                lines[size + i][j] = j * size + i;       // column i
+            }
+            lines[2 * size][i] = i * size + i;                   // main diagonal
+            lines[2 * size + 1][i] = i * size + (size - 1 - i);  // anti diagonal
+        }
+        return lines;
+    }
+
+    private static int[][] buildCellLines(int[][] lines, int cells) {
+        int[] count = new int[cells];
+        for (int[] line : lines) {
+            for (int c : line) count[c]++;
+        }
+        int[][] cellLines = new int[cells][];
+        for (int c = 0; c < cells; c++) {
+            cellLines[c] = new int[count[c]];
+            count[c] = 0;
+        }
+        for (int l = 0; l < lines.length; l++) {
+            for (int c : lines[l]) cellLines[c][count[c]++] = l;
+        }
+        return cellLines;
+    }
+}
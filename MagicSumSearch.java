@@ -0,0 +1,296 @@
+import java.util.Arrays;
+
+/**
+ * MagicSumSearch.java
+ *
+ * Depth-limited search for any MagicSumRules variant, for boards where full-depth
+ * minimax (MinimaxSearch, 3x3 only) is out of reach: 4x4 has 16 cells and 17
+ * digits, so the game tree is many orders of magnitude larger.
+ *
+ * The search runs on board (a MagicSumBoard, set it up before searching) by
+ * playing and undoing moves on it, and leaves it as it found it. It is negamax
+ * with alpha-beta and null-window re-searches (PVS), iterative deepening at the
+ * root, and a transposition table sized for the variant (see defaultTableBits).
+ * Scores are from the side to move's point of view:
+ * - win (a line adding up to target) with n pieces on the board: WIN - n
+ * - loss with n pieces on the board: -(WIN - n)
+ * - tie (full board, or the side to move has no digits left): 0
+ * - positions at the horizon: evaluate(), within +-HEURISTIC_LIMIT
+ *
+ * As in MinimaxSearch, a side that can complete a line does so without a search,
+ * and a side facing a threat it can't ignore only looks at the blocking moves.
+ * Moves are (cell << 6) | digit.
+ *
+ * One search at a time per instance; memory is allocated up front, so searches
+ * don't allocate.
+ */
+final class MagicSumSearch {
+
+    static final int WIN = 1000;
+    static final int HEURISTIC_LIMIT = 500;
+    static final int NO_MOVE = -1;
+
+    private static final int INF = 10_000;
+    private static final int THREAT_VALUE = 10;
+    private static final int FORK_VALUE = 30;
+    private static final int TEMPO_VALUE = 2;
+    private static final int BUDGET_CHECK_MASK = 1023;
+
+    private static final int TT_EXACT = 1;
+    private static final int TT_LOWER = 2;
+    private static final int TT_UPPER = 3;
+
+    private static final int HISTORY_LIMIT = 1 << 20;
+    private static final int TT_MOVE_BONUS = 1 << 24;
+    private static final int BLOCK_BONUS = 1 << 22;
+    private static final long ODD_TO_MOVE_KEY = 0x9E3779B97F4A7C15L;    // hashed in when odd is to move
+
+    final MagicSumRules rules;
+    final MagicSumBoard board;    // position to search from, see class comment
+
+    // Transposition table: full hash per slot, data = move(16) | draft(8) | flag(2) | value(16)
+    private final long[] ttKeys;
+    private final long[] ttData;
+    private final int ttMask;
+
+    // Move ordering
+    private final int[] history;      // per (cell << 6 | digit)
+    private final int[][] moveBuf;    // per ply from the root
+    private final int[][] keyBuf;
+    private int rootMove;
+
+    long nodes;             // negamax calls
+    long ttHits;            // transposition table probes that found the position
+    long ttMisses;          // transposition table probes that didn't
+    long cutoffs;           // beta cutoffs
+    long firstMoveCutoffs;  // cutoffs on the first move tried
+    int maxDepth;           // most pieces on the board at any node searched
+    int plies;              // depth of the last completed root iteration
+    int bestScore;          // score of bestMove() for the side to move
+
+    // Optional limits, polled every 1024 nodes; see SearchBudget
+    SearchBudget budget;
+    boolean stopped;
+
+    MagicSumSearch(MagicSumRules rules) {
+        this(rules, defaultTableBits(rules));
+    }
+
+    MagicSumSearch(MagicSumRules rules, int tableBits) {
+        this.rules = rules;
+        int cells = rules.cells;
+        board = new MagicSumBoard(rules);
+
+        ttKeys = new long[1 << tableBits];
+        ttData = new long[1 << tableBits];
+        ttMask = (1 << tableBits) - 1;
+
+        history = new int[cells << 6];
+        int maxMoves = cells * Math.max(Long.bitCount(rules.oddPool), Long.bitCount(rules.evenPool));
+        moveBuf = new int[cells + 1][maxMoves];
+        keyBuf = new int[cells + 1][maxMoves];
+    }
+
+    // Table size that grows with the variant: 2^16 entries (1 MB) for 3x3, 2^20 for
+    // 4x4, capped at 2^22 (64 MB) for bigger boards. A whole 3x3 game tree fits in
+    // 2^16; at 2^13 the full search visits about 40% more nodes.
+    static int defaultTableBits(MagicSumRules rules) {
+        return Math.min(22, 10 + rules.cells * 2 / 3);
+    }
+
+    // Forgets everything learned by earlier searches
+    void clearTables() {
+        Arrays.fill(ttKeys, 0);
+        Arrays.fill(ttData, 0);
+        Arrays.fill(history, 0);
+    }
+
+    static int moveCell(int move) {
+        return move >>> 6;
+    }
+
+    static int moveDigit(int move) {
+        return move & 63;
+    }
+
+    // Iterative deepening from the board's position, 1..maxPlies plies ahead (capped
+    // at the end of the game), stopping early on a proven result or when the budget
+    // runs out. The first iteration ignores the budget, so there is always a move
+    // unless the side to move has none (NO_MOVE). Adds the counters to stats.
+    int bestMove(boolean oddToMove, int maxPlies, SearchBudget budget, SearchStats stats) {
+        long start = System.nanoTime();
+        nodes = ttHits = ttMisses = cutoffs = firstMoveCutoffs = 0;
+        maxDepth = board.pieces;
+        plies = 0;
+        bestScore = 0;
+        stopped = false;
+
+        int best = NO_MOVE;
+        long digits = board.availableDigits(oddToMove);
+        if (digits != 0 && board.pieces < rules.cells) {
+            long wins = board.winningCells(digits);
+            if (wins != 0) {
+                int cell = Long.numberOfTrailingZeros(wins);
+                best = cell << 6 | board.winningDigit(cell, digits);
+                bestScore = WIN - board.pieces - 1;
+            } else {
+                int limit = Math.min(maxPlies, rules.cells - board.pieces);
+                for (int p = 1; p <= limit; p++) {
+                    this.budget = p == 1 ? null : budget;
+                    int score = negamax(oddToMove, p, -INF, INF, 0);
+                    if (stopped) break;
+                    plies = p;
+                    bestScore = score;
+                    best = rootMove;
+                    // A result within the horizon is final; a longer one may come from table
+                    // entries of deeper searches, and a faster win could still turn up
+                    if (Math.abs(score) > HEURISTIC_LIMIT && WIN - Math.abs(score) - board.pieces <= p) break;
+                }
+            }
+        }
+        this.budget = null;
+
+        stats.nodes += nodes;
+        stats.ttHits += ttHits;
+        stats.ttMisses += ttMisses;
+        stats.cutoffs += cutoffs;
+        stats.firstMoveCutoffs += firstMoveCutoffs;
+        stats.maxDepth = Math.max(stats.maxDepth, maxDepth);
+        stats.depth = board.pieces;
+        stats.plies = plies;
+        stats.score = bestScore;
+        stats.wallNanos += System.nanoTime() - start;
+        return best;
+    }
+
+    // Value of the current position for the side to move, searched depth plies ahead
+    int negamax(boolean odd, int depth, int alpha, int beta, int ply) {
+        nodes++;
+        if (board.pieces > maxDepth) maxDepth = board.pieces;
+        if (budget != null && (nodes & BUDGET_CHECK_MASK) == 0 && budget.exhausted(nodes)) {
+            stopped = true;
+        }
+        if (stopped) return 0;
+
+        long digits = board.availableDigits(odd);
+        if (digits == 0 || board.pieces == rules.cells) return 0;
+        if (board.winningCells(digits) != 0) return WIN - board.pieces - 1;
+
+        // Opponent threats we can't defuse by taking a shared digit: only blocks matter
+        long theirs = rules.pool(!odd) & ~board.used;
+        long threats = board.winningCells(theirs & ~rules.pool(odd));
+        if (ply > 0 && Long.bitCount(threats) > 1) return -(WIN - board.pieces - 2);
+        if (depth == 0) return evaluate(odd, digits, theirs);
+
+        long key = board.hash ^ (odd ? ODD_TO_MOVE_KEY : 0);
+        int slot = (int) (key ^ key >>> 32) & ttMask;
+        int ttMove = NO_MOVE;
+        if (ttKeys[slot] == key && ttData[slot] != 0) {
+            long e = ttData[slot];
+            ttHits++;
+            ttMove = (int) (e >>> 26);
+            int value = (short) e;
+            int flag = (int) (e >>> 16) & 3;
+            if (ply > 0 && ((int) (e >>> 18) & 0xFF) >= depth) {
+                if (flag == TT_EXACT) return value;
+                if (flag == TT_LOWER && value >= beta) return value;
+                if (flag == TT_UPPER && value <= alpha) return value;
+            }
+        } else {
+            ttMisses++;
+        }
+
+        int[] moves = moveBuf[ply];
+        int[] keys = keyBuf[ply];
+        long blocks = board.winningCells(theirs);
+        int n = 0;
+        for (int c = 0; c < rules.cells; c++) {
+            if (board.cells[c] != -1) continue;
+            if (threats != 0 && (threats & (1L << c)) == 0) continue;
+            int bonus = (blocks & (1L << c)) != 0 ? BLOCK_BONUS : 0;
+            for (long ds = digits; ds != 0; ds &= ds - 1) {
+                int m = c << 6 | Long.numberOfTrailingZeros(ds);
+                moves[n] = m;
+                keys[n] = m == ttMove ? TT_MOVE_BONUS : bonus + history[m];
+                n++;
+            }
+        }
+
+        int origAlpha = alpha;
+        int best = -INF;
+        int bestMove = NO_MOVE;
+        for (int i = 0; i < n; i++) {
+            int m = selectNext(moves, keys, i, n);
+            int cell = m >>> 6;
+            board.play(cell, m & 63);
+            int score;
+            if (i == 0) {
+                score = -negamax(!odd, depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                score = -negamax(!odd, depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta) {
+                    score = -negamax(!odd, depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            board.undo(cell);
+            if (stopped) return 0;
+            if (score > best) {
+                best = score;
+                bestMove = m;
+                if (ply == 0) rootMove = m;
+            }
+            if (score > alpha) alpha = score;
+            if (alpha >= beta) {
+                cutoffs++;
+                if (i == 0) firstMoveCutoffs++;
+                history[m] += depth * depth;
+                if (history[m] > HISTORY_LIMIT) {
+                    for (int h = 0; h < history.length; h++) history[h] >>= 1;
+                }
+                break;
+            }
+        }
+
+        int flag = best <= origAlpha ? TT_UPPER : best >= beta ? TT_LOWER : TT_EXACT;
+        ttKeys[slot] = key;
+        ttData[slot] = (long) (bestMove & 0xFFFF) << 26 | (long) depth << 18 | (long) flag << 16 | (best & 0xFFFF);
+        return best;
+    }
+
+    // Picks the highest-keyed move in [i, n) and swaps it to i (lazy selection sort:
+    // a cutoff on an early move skips sorting the rest)
+    private static int selectNext(int[] moves, int[] keys, int i, int n) {
+        int top = i;
+        for (int j = i + 1; j < n; j++) {
+            if (keys[j] > keys[top]) top = j;
+        }
+        int m = moves[top];
+        moves[top] = moves[i];
+        moves[i] = m;
+        int k = keys[top];
+        keys[top] = keys[i];
+        keys[i] = k;
+        return m;
+    }
+
+    // Horizon score for the side to move, which can't win at once: minus the
+    // opponent's open threats (a fork of two or more is all but lost), plus a little
+    // for every line it could turn into a threat with one of its own digits.
+    private int evaluate(boolean odd, long digits, long theirs) {
+        int threats = Long.bitCount(board.winningCells(theirs));
+        int score = threats >= 2 ? -FORK_VALUE : -THREAT_VALUE * threats;
+        for (int l = 0; l < rules.lines.length; l++) {
+            if (board.lineCount[l] != rules.size - 2) continue;
+            int need = rules.target - board.lineSum[l];
+            for (long ds = digits; ds != 0; ds &= ds - 1) {
+                int d = Long.numberOfTrailingZeros(ds);
+                int rest = need - d;
+                if (rest >= 0 && rest <= rules.maxDigit && rest != d && (digits & (1L << rest)) != 0) {
+                    score += TEMPO_VALUE;
+                    break;
+                }
+            }
+        }
+        return Math.max(-HEURISTIC_LIMIT, Math.min(HEURISTIC_LIMIT, score));
+    }
+}
@@ -1,6 +1,6 @@
 public class Main {
     public static void main(String[] args) {
-        GameOf15 game1 = new GameOf15();
+        GameOf15ZeroForBoth game1 = new GameOf15ZeroForBoth();
         game1.startGame();
     }
 }
@@ -0,0 +1,447 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * MctsSearch.java
+ *
+ * Monte Carlo tree search (UCT) for any MagicSumRules variant. Unlike minimax its
+ * cost is set by the caller, a number of playouts or a SearchBudget, so it plays
+ * boards like 4x4 where no search reaches the end of the game.
+ *
+ * Each iteration walks the tree from the root picking the child with the best
+ * upper confidence bound, expands the leaf it reaches once it has been visited,
+ * finishes the game with a random playout and credits the result (win 1, tie 1/2,
+ * loss 0) to every node on the way back. Playouts take an immediate win and block
+ * a lone threat when they can, and expansion keeps only those moves too, as in
+ * MagicSumSearch.
+ *
+ * The tree lives in preallocated int arrays (nodeCapacity nodes per tree), so
+ * iterations don't allocate; a full tree stops growing and keeps sampling from
+ * its leaves. Between moves the tree is kept: if the next position extends the
+ * root's by moves found in the tree, that subtree is copied down to become the
+ * new tree and its statistics are reused.
+ *
+ * With threads > 1 every thread grows its own tree from the same position (root
+ * parallelism, no locking) and the root visit counts are added up; the move with
+ * the most visits is played. Seeds are fixed at construction, so a single-threaded
+ * search limited by playouts is repeatable.
+ *
+ * One search at a time per instance.
+ */
+final class MctsSearch {
+
+    static final int NO_MOVE = -1;
+    static final int DEFAULT_CAPACITY = 1 << 18;
+
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final int BUDGET_CHECK_MASK = 63;
+
+    final MagicSumRules rules;
+    private final Tree[] trees;
+    private final ForkJoinPool pool;      // null => one tree, searched on the caller's thread
+    private final long[] rootVisits;      // per (cell << 6 | digit), summed over the trees
+
+    MctsSearch(MagicSumRules rules, int threads, long seed) {
+        this(rules, threads, DEFAULT_CAPACITY, seed);
+    }
+
+    MctsSearch(MagicSumRules rules, int threads, int nodeCapacity, long seed) {
+        int maxChildren = rules.cells * Math.max(Long.bitCount(rules.oddPool), Long.bitCount(rules.evenPool));
+        if (nodeCapacity <= maxChildren) {
+            throw new IllegalArgumentException("Node capacity must exceed " + maxChildren);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be at least 1");
+        }
+        this.rules = rules;
+        SplittableRandom seeds = new SplittableRandom(seed);
+        trees = new Tree[threads];
+        for (int i = 0; i < threads; i++) {
+            trees[i] = new Tree(rules, nodeCapacity, seeds.split());
+        }
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        rootVisits = new long[rules.cells << 6];
+    }
+
+    int threads() {
+        return trees.length;
+    }
+
+    // Drops the trees and reseeds them as if newly constructed with seed
+    void reset(long seed) {
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (Tree tree : trees) {
+            tree.rand = seeds.split();
+            tree.nodes.size = 0;
+        }
+    }
+
+    // Searches position (row-major cells, -1 for empty) with oddToMove to play,
+    // until maxPlayouts (split across the trees) or the budget runs out, and returns
+    // the most visited move, packed as (cell << 6) | digit, or NO_MOVE if the side
+    // to move has none. One of the limits must be finite. Playouts are counted in
+    // stats.nodes, and stats.plies is the deepest the tree got below the root.
+    int bestMove(int[] position, boolean oddToMove, long maxPlayouts, SearchBudget budget, SearchStats stats) {
+        long start = System.nanoTime();
+        long share = maxPlayouts == Long.MAX_VALUE ? maxPlayouts : (maxPlayouts + trees.length - 1) / trees.length;
+        if (pool == null) {
+            trees[0].search(position, oddToMove, share, budget);
+        } else {
+            ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[trees.length];
+            for (int i = 0; i < trees.length; i++) {
+                Tree tree = trees[i];
+                tasks[i] = pool.submit(() -> tree.search(position, oddToMove, share, budget));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+
+        Arrays.fill(rootVisits, 0);
+        int plies = 0;
+        for (Tree tree : trees) {
+            tree.addRootVisits(rootVisits);
+            stats.nodes += tree.playouts;
+            plies = Math.max(plies, tree.maxPly);
+        }
+        int best = NO_MOVE;
+        for (int m = 0; m < rootVisits.length; m++) {
+            if (rootVisits[m] > 0 && (best == NO_MOVE || rootVisits[m] > rootVisits[best])) best = m;
+        }
+
+        int pieces = trees[0].board.pieces;
+        stats.depth = pieces;
+        stats.plies = plies;
+        stats.maxDepth = Math.max(stats.maxDepth, Math.min(rules.cells, pieces + plies));
+        stats.wallNanos += System.nanoTime() - start;
+        return best;
+    }
+
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // Node storage, one array per field; see Tree for what the fields hold
+    private static final class Nodes {
+        final int[] move;
+        final int[] first;
+        final int[] count;
+        final int[] visits;
+        final int[] score;
+        int size;
+
+        Nodes(int capacity) {
+            move = new int[capacity];
+            first = new int[capacity];
+            count = new int[capacity];
+            visits = new int[capacity];
+            score = new int[capacity];
+        }
+
+        void copy(int to, Nodes from, int index) {
+            move[to] = from.move[index];
+            first[to] = from.first[index];
+            count[to] = from.count[index];
+            visits[to] = from.visits[index];
+            score[to] = from.score[index];
+        }
+    }
+
+    // One search tree. Node 0 is the root; a node's children are count[node]
+    // consecutive nodes from first[node]. move is the move leading to the node,
+    // score the half points (win 2, tie 1) it earned for the side that made it.
+    private static final class Tree {
+        private static final int WIN = -1;    // count: the move into the node completed a line
+        private static final int TIE = -2;    // count: the side to move in the node has no move
+
+        final MagicSumRules rules;
+        final MagicSumBoard board;            // the root position between searches
+        SplittableRandom rand;
+        final int capacity;
+        Nodes nodes;
+        Nodes spare;                          // target of the subtree copy on reuse
+        boolean rootOdd;
+
+        final int[] path;                     // nodes from the root in this iteration
+        final int[] played;                   // cells played on board in this iteration
+        int top;
+
+        long playouts;
+        int maxPly;
+
+        Tree(MagicSumRules rules, int capacity, SplittableRandom rand) {
+            this.rules = rules;
+            this.board = new MagicSumBoard(rules);
+            this.rand = rand;
+            this.capacity = capacity;
+            nodes = new Nodes(capacity);
+            spare = new Nodes(capacity);
+            path = new int[rules.cells + 1];
+            played = new int[rules.cells];
+        }
+
+        void search(int[] position, boolean oddToMove, long maxPlayouts, SearchBudget budget) {
+            prepare(position, oddToMove);
+            playouts = 0;
+            maxPly = 0;
+            if (board.availableDigits(rootOdd) == 0 || board.pieces == rules.cells) {
+                return;
+            }
+            while (playouts < maxPlayouts) {
+                if (playouts > 0 && (playouts & BUDGET_CHECK_MASK) == 0 && budget.exhausted(playouts)) {
+                    break;
+                }
+                iterate();
+                playouts++;
+            }
+        }
+
+        void addRootVisits(long[] out) {
+            Nodes t = nodes;
+            if (t.size == 0 || t.count[0] <= 0) return;
+            for (int c = t.first[0], end = c + t.count[0]; c < end; c++) {
+                out[t.move[c]] += t.visits[c];
+            }
+        }
+
+        // Moves the root to position, keeping the matching subtree if there is one
+        private void prepare(int[] position, boolean oddToMove) {
+            Nodes t = nodes;
+            boolean reuse = t.size > 0;
+            for (int c = 0; reuse && c < rules.cells; c++) {
+                reuse = board.cells[c] == -1 || board.cells[c] == position[c];
+            }
+            int node = 0;
+            boolean odd = rootOdd;
+            while (reuse && board.pieces < rules.cells) {
+                int next = -1;
+                for (int c = t.first[node], end = c + Math.max(0, t.count[node]); c < end; c++) {
+                    int cell = t.move[c] >>> 6;
+                    if (board.cells[cell] == -1 && position[cell] == (t.move[c] & 63)) {
+                        next = c;
+                        break;
+                    }
+                }
+                if (next == -1) break;
+                board.play(t.move[next] >>> 6, t.move[next] & 63);
+                node = next;
+                odd = !odd;
+            }
+            for (int c = 0; reuse && c < rules.cells; c++) {
+                reuse = board.cells[c] == position[c];
+            }
+            if (reuse && odd == oddToMove && t.count[node] != WIN) {
+                if (node != 0) compact(node);
+                rootOdd = oddToMove;
+                return;
+            }
+            board.set(position);
+            rootOdd = oddToMove;
+            t.size = 1;
+            t.move[0] = NO_MOVE;
+            t.first[0] = 0;
+            t.count[0] = 0;
+            t.visits[0] = 0;
+            t.score[0] = 0;
+        }
+
+        // Copies the subtree under root to spare, breadth first, and swaps it in
+        private void compact(int root) {
+            Nodes from = nodes, to = spare;
+            to.copy(0, from, root);
+            to.size = 1;
+            for (int scan = 0; scan < to.size; scan++) {
+                int n = to.count[scan];
+                if (n <= 0) continue;
+                int src = to.first[scan];
+                to.first[scan] = to.size;
+                for (int i = 0; i < n; i++) {
+                    to.copy(to.size++, from, src + i);
+                }
+            }
+            to.move[0] = NO_MOVE;
+            nodes = to;
+            spare = from;
+        }
+
+        private void iterate() {
+            Nodes t = nodes;
+            int node = 0;
+            boolean odd = rootOdd;
+            int ply = 0;
+            path[0] = 0;
+            top = 0;
+            while (t.count[node] > 0) {
+                node = select(t, node);
+                playMove(t.move[node]);
+                odd = !odd;
+                path[++ply] = node;
+            }
+
+            int result;     // for the side that moved into node: 2 win, 1 tie, 0 loss
+            if (t.count[node] == WIN) {
+                result = 2;
+            } else if (t.count[node] == TIE) {
+                result = 1;
+            } else {
+                if (t.visits[node] > 0 || node == 0) {
+                    expand(t, node, odd);
+                    if (t.count[node] > 0) {
+                        node = select(t, node);
+                        playMove(t.move[node]);
+                        odd = !odd;
+                        path[++ply] = node;
+                    }
+                }
+                if (t.count[node] == WIN) {
+                    result = 2;
+                } else if (t.count[node] == TIE) {
+                    result = 1;
+                } else {
+                    result = playout(odd);
+                }
+            }
+            if (ply > maxPly) maxPly = ply;
+
+            for (int i = ply; i >= 0; i--) {
+                int n = path[i];
+                t.visits[n]++;
+                t.score[n] += result;
+                result = 2 - result;
+            }
+            while (top > 0) {
+                board.undo(played[--top]);
+            }
+        }
+
+        private void playMove(int m) {
+            board.play(m >>> 6, m & 63);
+            played[top++] = m >>> 6;
+        }
+
+        // Child with the highest UCB1 value; unvisited children first, in the
+        // (shuffled) order they were added
+        private int select(Nodes t, int node) {
+            double logN = Math.log(t.visits[node]);
+            int best = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int c = t.first[node], end = c + t.count[node]; c < end; c++) {
+                int v = t.visits[c];
+                if (v == 0) return c;
+                double value = t.score[c] / (2.0 * v) + EXPLORATION * Math.sqrt(logN / v);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        // Adds node's children, or marks it a tie if the side to move has no move.
+        // Leaves it a leaf if the tree is full.
+        private void expand(Nodes t, int node, boolean odd) {
+            long digits = board.availableDigits(odd);
+            if (digits == 0 || board.pieces == rules.cells) {
+                t.count[node] = TIE;
+                return;
+            }
+            long wins = board.winningCells(digits);
+            if (wins != 0) {
+                if (t.size == capacity) return;
+                int cell = Long.numberOfTrailingZeros(wins);
+                int c = t.size++;
+                t.move[c] = cell << 6 | board.winningDigit(cell, digits);
+                t.first[c] = 0;
+                t.count[c] = WIN;
+                t.visits[c] = 0;
+                t.score[c] = 0;
+                t.first[node] = c;
+                t.count[node] = 1;
+                return;
+            }
+            long threats = board.winningCells(board.availableDigits(!odd) & ~rules.pool(odd));
+            long cells = 0;
+            for (int c = 0; c < rules.cells; c++) {
+                if (board.cells[c] == -1 && (threats == 0 || (threats & (1L << c)) != 0)) cells |= 1L << c;
+            }
+            int n = Long.bitCount(cells) * Long.bitCount(digits);
+            if (t.size + n > capacity) return;
+            int from = t.size;
+            for (long cs = cells; cs != 0; cs &= cs - 1) {
+                int cell = Long.numberOfTrailingZeros(cs);
+                for (long ds = digits; ds != 0; ds &= ds - 1) {
+                    int c = t.size++;
+                    t.move[c] = cell << 6 | Long.numberOfTrailingZeros(ds);
+                    t.first[c] = 0;
+                    t.count[c] = 0;
+                    t.visits[c] = 0;
+                    t.score[c] = 0;
+                }
+            }
+            for (int i = n - 1; i > 0; i--) {
+                int j = rand.nextInt(i + 1);
+                int m = t.move[from + i];
+                t.move[from + i] = t.move[from + j];
+                t.move[from + j] = m;
+            }
+            t.first[node] = from;
+            t.count[node] = n;
+        }
+
+        // Plays random moves to the end of the game from board, odd to move, and
+        // returns the result for the other side (the one that moved into the leaf):
+        // 2 win, 1 tie, 0 loss. Leaves board as it found it.
+        private int playout(boolean odd) {
+            int start = top;
+            boolean side = odd;
+            int result;
+            while (true) {
+                long digits = board.availableDigits(side);
+                if (digits == 0 || board.pieces == rules.cells) {
+                    result = 1;
+                    break;
+                }
+                if (board.winningCells(digits) != 0) {
+                    result = side == odd ? 0 : 2;
+                    break;
+                }
+                long threats = board.winningCells(board.availableDigits(!side) & ~rules.pool(side));
+                int cell;
+                if (threats != 0) {
+                    if (Long.bitCount(threats) > 1) {
+                        result = side == odd ? 2 : 0;   // can block only one
+                        break;
+                    }
+                    cell = Long.numberOfTrailingZeros(threats);
+                } else {
+                    cell = randomEmptyCell();
+                }
+                board.play(cell, randomDigit(digits));
+                played[top++] = cell;
+                side = !side;
+            }
+            while (top > start) {
+                board.undo(played[--top]);
+            }
+            return result;
+        }
+
+        private int randomEmptyCell() {
+            int k = rand.nextInt(rules.cells - board.pieces);
+            for (int c = 0; ; c++) {
+                if (board.cells[c] == -1 && k-- == 0) return c;
+            }
+        }
+
+        private int randomDigit(long digits) {
+            for (int k = rand.nextInt(Long.bitCount(digits)); k > 0; k--) {
+                digits &= digits - 1;
+            }
+            return Long.numberOfTrailingZeros(digits);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+import java.util.Random;
+
+/**
+ * MctsStrategy.java
+ *
+ * MctsSearch as a MoveStrategy for the classic 3x3 game: every move gets the same
+ * time and/or playout budget, and the search tree is carried over from one AI
+ * move to the next. Searches are recorded in metrics, if given, like the
+ * engine's own.
+ *
+ * One game at a time per instance (the tree belongs to it).
+ */
+final class MctsStrategy implements MoveStrategy {
+
+    private final MctsSearch search;
+    private final long millis;         // per move, 0 = no time limit
+    private final long maxPlayouts;    // per move, Long.MAX_VALUE = no limit
+    private final SearchMetrics metrics;
+    private final int[] cells = new int[BitBoard.CELLS];
+
+    MctsStrategy(MctsSearch search, long millis, long maxPlayouts, SearchMetrics metrics) {
+        if (millis <= 0 && maxPlayouts == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("MCTS needs a time or playout limit");
+        }
+        if (search.rules.size != 3) {
+            throw new IllegalArgumentException("MctsStrategy plays the 3x3 game");
+        }
+        this.search = search;
+        this.millis = millis;
+        this.maxPlayouts = maxPlayouts;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int chooseMove(long pos, boolean aiIsOdd, Random rand, SearchStats stats) {
+        for (int c = 0; c < BitBoard.CELLS; c++) {
+            cells[c] = BitBoard.isEmpty(pos, c) ? -1 : BitBoard.cell(pos, c);
+        }
+        SearchBudget budget = millis > 0 ? SearchBudget.ofMillis(millis) : SearchBudget.unlimited();
+        int move = search.bestMove(cells, aiIsOdd, maxPlayouts, budget, stats);
+        if (metrics != null) {
+            metrics.record(stats);
+        }
+        return BitBoard.move(MagicSumSearch.moveCell(move), MagicSumSearch.moveDigit(move));
+    }
+
+    @Override
+    public String name() {
+        return "mcts (" + search.threads() + " thread" + (search.threads() == 1 ? "" : "s") + ")";
+    }
+
+    @Override
+    public void newGame(long seed) {
+        search.reset(seed);
+    }
+
+    @Override
+    public void shutdown() {
+        search.shutdown();
+    }
+}
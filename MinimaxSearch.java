@@ -0,0 +1,309 @@
+import java.util.Arrays;
+
+/**
+ * MinimaxSearch.java
+ *
+ * Full-depth minimax with alpha-beta pruning over packed BitBoard positions.
+ * Scores are from the AI's point of view: 100 - n when the AI wins on move n,
+ * -100 + n when the human does, 0 for a tie.
+ *
+ * To get cutoffs early, a side that can complete a line wins on the spot without
+ * searching, and the remaining moves are tried in this order: blocks of the
+ * opponent's immediate wins, the two killer moves of the depth (the last moves
+ * that caused a cutoff there), then by history score (how much cutoff work each
+ * move has saved so far). Siblings after the first are searched with a null
+ * window (principal variation search) and only re-searched if they turn out
+ * better.
+ *
+ * The search normally runs to the end of the game. AnytimeSearch lowers horizon
+ * to cut it off early, scoring positions there with evaluate(), and sets a budget
+ * that stops it mid-search; a stopped search returns meaningless scores and
+ * leaves the transposition table alone.
+ *
+ * An instance carries its own counters and move-ordering tables, so it must only
+ * be used by one thread at a time. The transposition table itself may be shared
+ * between instances (see ParallelRootSearch).
+ */
+final class MinimaxSearch {
+
+    private static final int MAX_MOVES = BitBoard.CELLS * 6;   // 9 cells x at most 6 digits
+    private static final int NO_MOVE = -1;
+    private static final int HISTORY_SIZE = 1 << 8;            // indexed by packed move
+    private static final int HISTORY_LIMIT = 1 << 20;          // halve every entry past this
+    private static final int KILLER_BONUS = 1 << 21;
+    private static final int BLOCK_BONUS = 1 << 23;
+    private static final int BUDGET_CHECK_MASK = (1 << 10) - 1;   // check the budget every 1024 nodes
+
+    // evaluate() stays within +/- this, well clear of real results (wins are 91..99)
+    static final int HEURISTIC_LIMIT = 80;
+    private static final int THREAT_VALUE = 10;
+    private static final int FORK_VALUE = 30;
+
+    private final boolean humanIsOdd;
+    private final TranspositionTable tt;
+
+    // Move lists per depth, sorted best-looking first
+    private final int[] moveBuf = new int[BitBoard.CELLS * MAX_MOVES];
+    private final int[] keyBuf = new int[BitBoard.CELLS * MAX_MOVES];
+    private final int[] killers = new int[BitBoard.CELLS * 2];
+    private final int[] history = new int[2 * HISTORY_SIZE];   // human moves, then AI moves
+
+    long nodes;      // minimax calls
+    long ttHits;     // transposition table probes that found the position
+    long ttMisses;   // transposition table probes that didn't
+    long cutoffs;    // alpha-beta cutoffs
+    long firstMoveCutoffs;   // cutoffs on the first move tried
+    int maxDepth;    // most pieces on the board at any node searched
+    int bestScore;   // score of the moves returned by the last bestMoves()
+
+    int horizon = BitBoard.CELLS;   // board depth at which positions are evaluated, not searched
+    SearchBudget budget;            // null => no limit
+    boolean stopped;                // the budget ran out; results since are meaningless
+
+    MinimaxSearch(boolean humanIsOdd, TranspositionTable tt) {
+        this.humanIsOdd = humanIsOdd;
+        this.tt = tt;
+        Arrays.fill(killers, NO_MOVE);
+    }
+
+    void resetCounters() {
+        nodes = 0;
+        ttHits = 0;
+        ttMisses = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        maxDepth = 0;
+    }
+
+    // Scores every AI move from pos (depth = pieces already placed) and fills out
+    // with the moves tied for the best score, in generation order. Returns how many.
+    //
+    // The root moves share one window: once a move scores bound, the others are
+    // searched with (bound - 1, bound + 1). A move that fails low scores below the
+    // best and is dropped, one in between ties it exactly, and only one that fails
+    // high is searched again for its exact score, so moves tied for the best all
+    // come out.
+    int bestMoves(long pos, int depth, int[] out) {
+        int digits = BitBoard.availableDigits(pos, !humanIsOdd);
+        long lines = BitBoard.lines(pos);
+        int maxScore = Integer.MIN_VALUE;
+        int bestCount = 0;
+        for (long cells = BitBoard.emptyCells(pos); cells != 0; cells &= cells - 1) {
+            int cell = BitBoard.cellAt(cells);
+            for (int ds = digits; ds != 0; ds &= ds - 1) {
+                int d = Integer.numberOfTrailingZeros(ds);
+                long child = BitBoard.place(pos, cell, d);
+                long childLines = BitBoard.addToLines(lines, cell, d);
+                int score;
+                if (maxScore == Integer.MIN_VALUE) {
+                    score = minimax(child, childLines, cell, depth + 1, false, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                } else {
+                    score = minimax(child, childLines, cell, depth + 1, false, maxScore - 1, maxScore + 1);
+                    if (score < maxScore) continue;
+                    if (score > maxScore) {
+                        score = minimax(child, childLines, cell, depth + 1, false, maxScore, Integer.MAX_VALUE);
+                    }
+                }
+                if (score > maxScore) {
+                    maxScore = score;
+                    bestCount = 0;
+                }
+                if (score == maxScore) {
+                    out[bestCount++] = BitBoard.move(cell, d);
+                }
+            }
+        }
+        bestScore = maxScore;
+        return bestCount;
+    }
+
+    /**
+     * Full-depth minimax with alpha-beta pruning on a packed position.
+     * isMax = true => AI's turn (maximizing); false => human's turn (minimizing).
+     *
+     * lines holds the running line sums of state (see BitBoard) and lastCell is
+     * where the previous move went.
+     *
+     * Terminal evaluation: only lines through lastCell can have just reached 15,
+     * and if one did, the side that made the previous move won, i.e. the opponent
+     * of the side to move. A side with no digits left can't move, which ends the
+     * game in a tie. A side that can complete a line this move wins, and no score
+     * beats that. Other positions at the horizon get evaluate()'s guess.
+     *
+     * Results are cached in the transposition table with the bound type implied
+     * by the alpha-beta window they were searched with, and the draft (plies to
+     * the horizon) they were searched to.
+     */
+    int minimax(long state, long lines, int lastCell, int depth, boolean isMax, int alpha, int beta) {
+        nodes++;
+        if (depth > maxDepth) maxDepth = depth;
+        if (budget != null && (nodes & BUDGET_CHECK_MASK) == 0 && budget.exhausted(nodes)) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        // Check terminal
+        if (BitBoard.completesLine(lines, lastCell)) {
+            return isMax ? (-100 + depth) : (100 - depth);
+        }
+        if (depth == 9) {
+            return 0;  // tie
+        }
+        boolean moverIsOdd = isMax ? !humanIsOdd : humanIsOdd;
+        int digits = BitBoard.availableDigits(state, moverIsOdd);
+        if (digits == 0) {
+            return 0;  // tie, mover has nothing left to place
+        }
+        if (BitBoard.winningCells(state, lines, digits) != 0) {
+            return isMax ? (100 - depth - 1) : (-100 + depth + 1);
+        }
+        if (depth >= horizon) {
+            return evaluate(state, lines, isMax);
+        }
+
+        int draft = horizon - depth;
+        long key = TranspositionTable.key(state, isMax);
+        long entry = tt.probe(key);
+        if (entry != 0 && TranspositionTable.draft(entry) >= draft) {
+            ttHits++;
+            int value = TranspositionTable.value(entry);
+            switch (TranspositionTable.flag(entry)) {
+                case TranspositionTable.EXACT: return value;
+                case TranspositionTable.LOWER: alpha = Math.max(alpha, value); break;
+                default: beta = Math.min(beta, value); break;
+            }
+            if (beta <= alpha) return value;
+        } else {
+            ttMisses++;
+        }
+
+        int n = orderMoves(state, lines, depth, digits, BitBoard.availableDigits(state, !moverIsOdd), isMax);
+        int alphaOrig = alpha, betaOrig = beta;
+        int result = isMax ? maxNode(state, lines, depth, n, alpha, beta)
+                           : minNode(state, lines, depth, n, alpha, beta);
+        if (stopped) {
+            return result;
+        }
+        int flag = result <= alphaOrig ? TranspositionTable.UPPER
+                 : result >= betaOrig ? TranspositionTable.LOWER
+                 : TranspositionTable.EXACT;
+        tt.store(key, draft, flag, result);
+        return result;
+    }
+
+    // AI to move: the n moves listed for this depth, first one with the full window
+    private int maxNode(long state, long lines, int depth, int n, int alpha, int beta) {
+        int maxEval = Integer.MIN_VALUE;
+        for (int i = 0, base = depth * MAX_MOVES; i < n; i++) {
+            int m = moveBuf[base + i];
+            int cell = BitBoard.moveCell(m);
+            int d = BitBoard.moveDigit(m);
+            long child = BitBoard.place(state, cell, d);
+            long childLines = BitBoard.addToLines(lines, cell, d);
+            int eval;
+            if (i == 0) {
+                eval = minimax(child, childLines, cell, depth + 1, false, alpha, beta);
+            } else {
+                eval = minimax(child, childLines, cell, depth + 1, false, alpha, alpha + 1);
+                if (eval > alpha && eval < beta) {
+                    eval = minimax(child, childLines, cell, depth + 1, false, alpha, beta);
+                }
+            }
+            if (stopped) return 0;
+            maxEval = Math.max(maxEval, eval);
+            alpha = Math.max(alpha, eval);
+            if (beta <= alpha) return cutoff(maxEval, m, depth, true, i == 0);
+        }
+        return maxEval;
+    }
+
+    // Human to move: the n moves listed for this depth, first one with the full window
+    private int minNode(long state, long lines, int depth, int n, int alpha, int beta) {
+        int minEval = Integer.MAX_VALUE;
+        for (int i = 0, base = depth * MAX_MOVES; i < n; i++) {
+            int m = moveBuf[base + i];
+            int cell = BitBoard.moveCell(m);
+            int d = BitBoard.moveDigit(m);
+            long child = BitBoard.place(state, cell, d);
+            long childLines = BitBoard.addToLines(lines, cell, d);
+            int eval;
+            if (i == 0) {
+                eval = minimax(child, childLines, cell, depth + 1, true, alpha, beta);
+            } else {
+                eval = minimax(child, childLines, cell, depth + 1, true, beta - 1, beta);
+                if (eval < beta && eval > alpha) {
+                    eval = minimax(child, childLines, cell, depth + 1, true, alpha, beta);
+                }
+            }
+            if (stopped) return 0;
+            minEval = Math.min(minEval, eval);
+            beta = Math.min(beta, eval);
+            if (beta <= alpha) return cutoff(minEval, m, depth, false, i == 0);
+        }
+        return minEval;
+    }
+
+    // Guess for a position cut off at the horizon, from the AI's point of view. The
+    // side to move can't complete a line (minimax checked), so what matters is how
+    // many cells each side threatens to win in next: the side to move can block one
+    // threat, but not two.
+    int evaluate(long state, long lines, boolean isMax) {
+        int ai = Integer.bitCount(BitBoard.winningCells(state, lines, BitBoard.availableDigits(state, !humanIsOdd)));
+        int human = Integer.bitCount(BitBoard.winningCells(state, lines, BitBoard.availableDigits(state, humanIsOdd)));
+        int score = THREAT_VALUE * (ai - human);
+        if (isMax && human >= 2) score -= FORK_VALUE;
+        if (!isMax && ai >= 2) score += FORK_VALUE;
+        return Math.max(-HEURISTIC_LIMIT, Math.min(HEURISTIC_LIMIT, score));
+    }
+
+    // Lists every move of the side to move for this depth, sorted by ordering key
+    // (insertion sort: ties keep generation order). Returns how many there are.
+    private int orderMoves(long state, long lines, int depth, int digits, int opponentDigits, boolean isMax) {
+        int base = depth * MAX_MOVES;
+        int blocks = BitBoard.winningCells(state, lines, opponentDigits);
+        int killer0 = killers[depth * 2];
+        int killer1 = killers[depth * 2 + 1];
+        int hist = isMax ? HISTORY_SIZE : 0;
+        int n = 0;
+        for (long cells = BitBoard.emptyCells(state); cells != 0; cells &= cells - 1) {
+            int cell = BitBoard.cellAt(cells);
+            int cellKey = (blocks >>> cell & 1) != 0 ? BLOCK_BONUS : 0;
+            for (int ds = digits; ds != 0; ds &= ds - 1) {
+                int m = BitBoard.move(cell, Integer.numberOfTrailingZeros(ds));
+                int key = cellKey + history[hist + m];
+                if (m == killer0) key += 2 * KILLER_BONUS;
+                else if (m == killer1) key += KILLER_BONUS;
+                int i = base + n++;
+                while (i > base && keyBuf[i - 1] < key) {
+                    moveBuf[i] = moveBuf[i - 1];
+                    keyBuf[i] = keyBuf[i - 1];
+                    i--;
+                }
+                moveBuf[i] = m;
+                keyBuf[i] = key;
+            }
+        }
+        return n;
+    }
+
+    // Records a cutoff by move m: it becomes the depth's first killer and earns
+    // history in proportion to the size of the subtree it saved
+    private int cutoff(int eval, int m, int depth, boolean isMax, boolean firstMove) {
+        cutoffs++;
+        if (firstMove) firstMoveCutoffs++;
+        if (killers[depth * 2] != m) {
+            killers[depth * 2 + 1] = killers[depth * 2];
+            killers[depth * 2] = m;
+        }
+        int remaining = BitBoard.CELLS - depth;
+        int h = (isMax ? HISTORY_SIZE : 0) + m;
+        history[h] += remaining * remaining;
+        if (history[h] > HISTORY_LIMIT) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+        return eval;
+    }
+}
@@ -0,0 +1,50 @@
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * MinimaxStrategy.java
+ *
+ * The GameEngine's move choice as a MoveStrategy: a solution table lookup or
+ * full-depth minimax at PERFECT, an anytime search below it. The engine is shared
+ * and shut down by its owner.
+ *
+ * With a Ponderer, every move also starts pondering the human's replies to it,
+ * and the next move is taken from there when it was pondered. The strategy plays
+ * one game at a time, so it keeps one Ponderer game id for all of them.
+ */
+final class MinimaxStrategy implements MoveStrategy {
+
+    private final GameEngine engine;
+    private final Difficulty difficulty;
+    private final Ponderer ponderer;    // null => no pondering
+    private final long game = ThreadLocalRandom.current().nextLong() | 1;   // never NO_GAME
+
+    MinimaxStrategy(GameEngine engine, Difficulty difficulty) {
+        this(engine, difficulty, null);
+    }
+
+    MinimaxStrategy(GameEngine engine, Difficulty difficulty, Ponderer ponderer) {
+        this.engine = engine;
+        this.difficulty = difficulty;
+        this.ponderer = ponderer;
+    }
+
+    @Override
+    public int chooseMove(long pos, boolean aiIsOdd, Random rand, SearchStats stats) {
+        if (ponderer == null) {
+            return engine.chooseMove(pos, aiIsOdd, difficulty, rand, stats);
+        }
+        int move = ponderer.take(game, pos, aiIsOdd, difficulty, stats);
+        if (move == Ponderer.NO_MOVE) {
+            move = engine.chooseMove(pos, aiIsOdd, difficulty, rand, stats);
+        }
+        long next = BitBoard.place(pos, BitBoard.moveCell(move), BitBoard.moveDigit(move));
+        ponderer.ponder(game, next, aiIsOdd, difficulty);
+        return move;
+    }
+
+    @Override
+    public String name() {
+        return "minimax (" + difficulty.name().toLowerCase() + (ponderer != null ? ", pondering" : "") + ")";
+    }
+}
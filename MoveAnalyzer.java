@@ -0,0 +1,208 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MoveAnalyzer.java
+ *
+ * Hints: every legal move of the side to move with its exact value, so a front end
+ * can show the best moves and warn about blunders. Values are from the mover's
+ * point of view on the usual scale (100 - n: the mover wins on move n, -100 + n:
+ * it loses on move n, 0: tie), so how far off the win is comes with the value
+ * (see decidedOnMove()).
+ *
+ * Results go into a bounded LRU cache keyed on the canonical position (see
+ * TranspositionTable) and the side to move, so the 8 orientations of a position
+ * share one entry and the common openings are answered without searching. An
+ * entry holds the moves in the canonical orientation, and a lookup maps them back
+ * through the symmetry that takes the position asked about there.
+ *
+ * The cache is split into segments, each a LinkedHashMap in access order under its
+ * own lock, so concurrent requests seldom wait for each other. Thread-safe;
+ * capacity = 0 turns the cache off.
+ */
+final class MoveAnalyzer {
+
+    private static final int SEGMENTS = 16;     // power of two
+    private static final int MAX_MOVES = BitBoard.CELLS * 6;
+
+    // INVERSE[s][c] is the cell that SYMMETRIES[s] moves to c
+    private static final int[][] INVERSE = new int[TranspositionTable.SYMMETRIES.length][BitBoard.CELLS];
+
+    static {
+        for (int s = 0; s < INVERSE.length; s++) {
+            for (int i = 0; i < BitBoard.CELLS; i++) {
+                INVERSE[s][TranspositionTable.SYMMETRIES[s][i]] = i;
+            }
+        }
+    }
+
+    private final GameEngine engine;
+    private final Segment[] segments;     // null => no cache
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * One analyzed position: its value for the side to move and every legal move
+     * (packed as BitBoard moves) with its value, best first. A finished game has
+     * no moves; its value says who won. nodes is 0 for an answer from the cache.
+     */
+    record Analysis(int value, int[] moves, int[] values, boolean cached, long nodes) {
+    }
+
+    // Entries are (canonical move << 8) | (value & 0xFF), sorted best first
+    private final class Segment extends LinkedHashMap<Long, int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+
+    MoveAnalyzer(GameEngine engine, int capacity) {
+        this.engine = engine;
+        if (capacity <= 0) {
+            segments = null;
+            return;
+        }
+        int perSegment = (capacity + SEGMENTS - 1) / SEGMENTS;
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    // The move on which a game with this value ends, counting from the first piece
+    // placed (0 for a tie, which may end before the board is full)
+    static int decidedOnMove(int value) {
+        return value == 0 ? 0 : 100 - Math.abs(value);
+    }
+
+    Analysis analyze(long pos, boolean moverIsOdd) {
+        int resolved = SolutionTable.resolve(pos, moverIsOdd);
+        if (resolved != SolutionTable.NONE) {
+            return new Analysis(resolved, new int[0], new int[0], false, 0);
+        }
+
+        // The side bit of a transposition table key tells the movers apart just as well
+        Long key = TranspositionTable.key(pos, moverIsOdd);
+        int sym = TranspositionTable.canonicalSymmetry(pos);
+        int[] entry = lookup(key);
+        if (entry != null) {
+            hits.increment();
+            return unpack(entry, INVERSE[sym], true, 0);
+        }
+        misses.increment();
+
+        int[] moves = new int[MAX_MOVES];
+        int[] values = new int[MAX_MOVES];
+        SearchStats stats = new SearchStats();
+        int n = engine.analyze(pos, moverIsOdd, moves, values, stats);
+        int[] toCanonical = TranspositionTable.SYMMETRIES[sym];
+        entry = new int[n];
+        for (int i = 0; i < n; i++) {
+            int move = BitBoard.move(toCanonical[BitBoard.moveCell(moves[i])], BitBoard.moveDigit(moves[i]));
+            entry[i] = move << 8 | (values[i] & 0xFF);
+        }
+        sort(entry);
+        if (segments != null) {
+            Segment segment = segment(key);
+            synchronized (segment) {
+                segment.put(key, entry);
+            }
+        }
+        return unpack(entry, INVERSE[sym], false, stats.nodes);
+    }
+
+    private int[] lookup(Long key) {
+        if (segments == null) return null;
+        Segment segment = segment(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    private Segment segment(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return segments[(int) (h >>> 60) & (SEGMENTS - 1)];
+    }
+
+    // Maps an entry's moves back through fromCanonical, keeping best first and,
+    // among equal values, the moves in board order
+    private static Analysis unpack(int[] entry, int[] fromCanonical, boolean cached, long nodes) {
+        int n = entry.length;
+        int[] packed = new int[n];
+        for (int i = 0; i < n; i++) {
+            int move = entry[i] >>> 8;
+            move = BitBoard.move(fromCanonical[BitBoard.moveCell(move)], BitBoard.moveDigit(move));
+            packed[i] = move << 8 | (entry[i] & 0xFF);
+        }
+        sort(packed);
+        int[] moves = new int[n];
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            moves[i] = packed[i] >>> 8;
+            values[i] = (byte) packed[i];
+        }
+        return new Analysis(values[0], moves, values, cached, nodes);
+    }
+
+    // Insertion sort by value, highest first, then by move; n is at most a few dozen
+    private static void sort(int[] packed) {
+        for (int i = 1; i < packed.length; i++) {
+            int e = packed[i];
+            int j = i - 1;
+            while (j >= 0 && before(e, packed[j])) {
+                packed[j + 1] = packed[j];
+                j--;
+            }
+            packed[j + 1] = e;
+        }
+    }
+
+    private static boolean before(int a, int b) {
+        int va = (byte) a, vb = (byte) b;
+        return va != vb ? va > vb : (a >>> 8) < (b >>> 8);
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    // Share of lookups answered from the cache since start-up, 0 before the first
+    double hitRatio() {
+        long h = hits(), total = h + misses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    int size() {
+        if (segments == null) return 0;
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+}
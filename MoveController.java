@@ -0,0 +1,186 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * MoveController.java
+ *
+ * Stateless move endpoint: the client sends the whole game each time and gets back
+ * the AI's reply in the shape of gameof15.json.
+ *
+ * POST /api/move
+ *   {"board": [-1,3,-1, -1,-1,-1, -1,7,9], "parity": "odd", "order": "human", "difficulty": "hard",
+ *    "game": "5f3a9c0e12d4b7a1"}
+ * - board      : 9 cells in row-major order, -1 = empty (0 is a playable digit)
+ * - parity     : the human's digit set, "odd" or "even"
+ * - order      : who went first, "human" or "ai"
+ * - difficulty : "easy", "medium", "hard" or "perfect" (the default), see Difficulty
+ * - game       : optional, up to 16 hex digits the client picks at random for each
+ *                game and sends with every move of it; nothing is stored under it,
+ *                it only tells the Ponderer which game's pondering to use
+ *
+ * If the human's last move already decided the game, no AI move is made.
+ * status is one of "ongoing", "humanWon", "aiWon", "tie".
+ *
+ * After each AI move the Ponderer searches the human's possible replies, so the
+ * next request for the same game is usually answered from there. Without a game
+ * id a request may end another game's pondering if both reached the same position.
+ */
+@RestController
+@CrossOrigin
+public class MoveController {
+
+    private final GameEngine engine;
+    private final Ponderer ponderer;
+
+    public MoveController(GameEngine engine, Ponderer ponderer) {
+        this.engine = engine;
+        this.ponderer = ponderer;
+    }
+
+    public record MoveRequest(int[] board, String parity, String order, String difficulty, String game) {
+    }
+
+    public record AiMove(int row, int col, int digit) {
+    }
+
+    public record MoveResponse(int[] board, String status, String message, AiMove aiMove) {
+    }
+
+    @PostMapping("/api/move")
+    public MoveResponse move(@RequestBody MoveRequest request) {
+        boolean humanIsOdd = parseChoice(request.parity(), "odd", "even", "parity");
+        boolean humanFirst = parseChoice(request.order(), "human", "ai", "order");
+        Difficulty difficulty = parseDifficulty(request.difficulty());
+        long pos = parseBoard(request.board(), humanIsOdd, humanFirst);
+        return reply(parseGame(request.game()), pos, humanIsOdd, humanFirst, difficulty).response();
+    }
+
+    // The game after the AI's reply, and what to tell the client
+    record Reply(long pos, MoveResponse response) {
+    }
+
+    // Plays the AI's move in pos, unless the human's last move already decided the
+    // game; game is the Ponderer's id for it (Ponderer.NO_GAME if there is none)
+    Reply reply(long game, long pos, boolean humanIsOdd, boolean humanFirst, Difficulty difficulty) {
+        int pieces = BitBoard.pieceCount(pos);
+        boolean aiToMove = (pieces % 2 == 0) != humanFirst;
+        if (BitBoard.hasLine15(pos)) {
+            // The game stops at the first line of 15, so whoever moved last won
+            ponderer.forget(game);
+            return aiToMove
+                ? new Reply(pos, new MoveResponse(toBoard(pos), "humanWon", "Congratulations, you win!", null))
+                : new Reply(pos, new MoveResponse(toBoard(pos), "aiWon", "AI wins! Better luck next time.", null));
+        }
+        if (!aiToMove) {
+            throw badRequest("It's the human's turn");
+        }
+        if (pieces == BitBoard.CELLS || BitBoard.availableDigits(pos, !humanIsOdd) == 0) {
+            ponderer.forget(game);
+            return new Reply(pos, new MoveResponse(toBoard(pos), "tie", "It's a tie!", null));
+        }
+
+        SearchStats stats = new SearchStats();
+        int move = ponderer.take(game, pos, !humanIsOdd, difficulty, stats);
+        if (move == Ponderer.NO_MOVE) {
+            move = engine.chooseMove(pos, !humanIsOdd, difficulty, ThreadLocalRandom.current(), stats);
+        }
+        int cell = BitBoard.moveCell(move);
+        int digit = BitBoard.moveDigit(move);
+        pos = BitBoard.place(pos, cell, digit);
+        AiMove aiMove = new AiMove(cell / 3, cell % 3, digit);
+
+        if (BitBoard.hasLine15(pos)) {
+            return new Reply(pos, new MoveResponse(toBoard(pos), "aiWon", "AI wins! Better luck next time.", aiMove));
+        }
+        if (pieces + 1 == BitBoard.CELLS || BitBoard.availableDigits(pos, humanIsOdd) == 0) {
+            return new Reply(pos, new MoveResponse(toBoard(pos), "tie", "It's a tie!", aiMove));
+        }
+        ponderer.ponder(game, pos, !humanIsOdd, difficulty);
+        return new Reply(pos, new MoveResponse(toBoard(pos), "ongoing", "Your move!", aiMove));
+    }
+
+    static boolean parseChoice(String value, String yes, String no, String field) {
+        if (yes.equalsIgnoreCase(value)) return true;
+        if (no.equalsIgnoreCase(value)) return false;
+        throw badRequest(field + " must be '" + yes + "' or '" + no + "'");
+    }
+
+    // A client's game id, or Ponderer.NO_GAME if it sent none
+    static long parseGame(String value) {
+        if (value == null || value.isEmpty()) {
+            return Ponderer.NO_GAME;
+        }
+        try {
+            if (value.length() <= 16) {
+                return Long.parseUnsignedLong(value, 16);
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        throw badRequest("game must be up to 16 hex digits");
+    }
+
+    static Difficulty parseDifficulty(String value) {
+        try {
+            return Difficulty.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw badRequest(e.getMessage());
+        }
+    }
+
+    // Checks the board is a position this game could have reached and packs it
+    private static long parseBoard(int[] board, boolean humanIsOdd, boolean humanFirst) {
+        long pos = packBoard(board);
+        int odd = Integer.bitCount(BitBoard.usedMask(pos) & BitBoard.ODD_DIGITS & ~1);
+        int even = Integer.bitCount(BitBoard.usedMask(pos) & BitBoard.EVEN_DIGITS & ~1);
+        // 0 may belong to either side, every other digit gives away who played it
+        int pieces = BitBoard.pieceCount(pos);
+        int humanMoves = humanFirst ? (pieces + 1) / 2 : pieces / 2;
+        int aiMoves = pieces - humanMoves;
+        int oddMoves = humanIsOdd ? humanMoves : aiMoves;
+        int evenMoves = humanIsOdd ? aiMoves : humanMoves;
+        if (odd > oddMoves || even > evenMoves) {
+            throw badRequest("Board doesn't match the parity and order");
+        }
+        return pos;
+    }
+
+    // Packs 9 cells in row-major order, -1 = empty, checking digits are 0..9 and unique
+    static long packBoard(int[] board) {
+        if (board == null || board.length != BitBoard.CELLS) {
+            throw badRequest("board must have 9 cells");
+        }
+        long pos = BitBoard.EMPTY;
+        for (int i = 0; i < BitBoard.CELLS; i++) {
+            int d = board[i];
+            if (d == -1) continue;
+            if (d < 0 || d > 9) {
+                throw badRequest("Cells must be -1 (empty) or a digit 0..9");
+            }
+            if (BitBoard.isUsed(pos, d)) {
+                throw badRequest("Digit " + d + " is used twice");
+            }
+            pos = BitBoard.place(pos, i, d);
+        }
+        return pos;
+    }
+
+    static int[] toBoard(long pos) {
+        int[] board = new int[BitBoard.CELLS];
+        for (int i = 0; i < BitBoard.CELLS; i++) {
+            int v = BitBoard.cell(pos, i);
+            board[i] = v == BitBoard.EMPTY_CELL ? -1 : v;
+        }
+        return board;
+    }
+
+    static ResponseStatusException badRequest(String message) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+    }
+}
@@ -0,0 +1,28 @@
+import java.util.Random;
+
+/**
+ * MoveStrategy.java
+ *
+ * How the AI picks its moves in the classic game; the console game calls it once
+ * per AI turn and doesn't care which algorithm is behind it:
+ * - MinimaxStrategy: GameEngine (solution table, or minimax at a Difficulty)
+ * - MctsStrategy: Monte Carlo tree search with a fixed time or playout budget
+ */
+interface MoveStrategy {
+
+    // The AI's move in pos, packed as a BitBoard move; the AI has at least one.
+    // The search's statistics are added to stats.
+    int chooseMove(long pos, boolean aiIsOdd, Random rand, SearchStats stats);
+
+    // Short name for the console
+    String name();
+
+    // Called before each game of a tournament, so strategies with their own
+    // randomness can replay the same games from the same seed
+    default void newGame(long seed) {
+    }
+
+    // Releases any threads the strategy owns
+    default void shutdown() {
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ParallelRootSearch.java
+ *
+ * Splits the AI's root moves across a ForkJoinPool. Every task searches its own
+ * child position with its own MinimaxSearch (so node counts need no locking),
+ * and all tasks share the transposition table plus one atomically raised bound:
+ * the best root score found so far.
+ *
+ * A root move is searched with the window (bound - 1, +inf). If it fails low it
+ * can't be among the best moves; otherwise its score is exact. The moves tied for
+ * the best score therefore come out the same, and in the same order, as
+ * MinimaxSearch.bestMoves().
+ *
+ * Safe to call from several threads at once; concurrent searches share the pool.
+ */
+final class ParallelRootSearch {
+
+    private final ForkJoinPool pool;
+
+    ParallelRootSearch(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    int parallelism() {
+        return pool.getParallelism();
+    }
+
+    // Same contract as MinimaxSearch.bestMoves(); the tasks' counters are added to stats
+    // and the best score is stored in it
+    int bestMoves(long pos, int depth, boolean humanIsOdd, TranspositionTable tt, int[] out, SearchStats stats) {
+        int digits = BitBoard.availableDigits(pos, !humanIsOdd);
+        int[] moves = new int[BitBoard.CELLS * 10];
+        int n = 0;
+        for (long cells = BitBoard.emptyCells(pos); cells != 0; cells &= cells - 1) {
+            int cell = BitBoard.cellAt(cells);
+            for (int ds = digits; ds != 0; ds &= ds - 1) {
+                moves[n++] = BitBoard.move(cell, Integer.numberOfTrailingZeros(ds));
+            }
+        }
+
+        RootTask root = new RootTask(pos, depth, moves, new int[n], 0, n,
+            new MinimaxSearch[n], humanIsOdd, tt, new AtomicInteger(Integer.MIN_VALUE + 1));
+        pool.invoke(root);
+
+        int best = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            stats.add(root.workers[i]);
+            best = Math.max(best, root.scores[i]);
+        }
+        stats.score = best;
+        int bestCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (root.scores[i] == best) out[bestCount++] = moves[i];
+        }
+        return bestCount;
+    }
+
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    // Searches root moves [from, to), splitting in halves down to single moves
+    private static final class RootTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final long pos;
+        final int depth;
+        final int[] moves;
+        final int[] scores;
+        final int from, to;
+        final transient MinimaxSearch[] workers;   // never serialized: tasks only live in the pool
+        final boolean humanIsOdd;
+        final transient TranspositionTable tt;
+        final AtomicInteger bound;
+
+        RootTask(long pos, int depth, int[] moves, int[] scores, int from, int to,
+                 MinimaxSearch[] workers, boolean humanIsOdd, TranspositionTable tt, AtomicInteger bound) {
+            this.pos = pos;
+            this.depth = depth;
+            this.moves = moves;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+            this.workers = workers;
+            this.humanIsOdd = humanIsOdd;
+            this.tt = tt;
+            this.bound = bound;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(split(from, mid), split(mid, to));
+                return;
+            }
+            MinimaxSearch worker = new MinimaxSearch(humanIsOdd, tt);
+            int cell = BitBoard.moveCell(moves[from]);
+            int digit = BitBoard.moveDigit(moves[from]);
+            long child = BitBoard.place(pos, cell, digit);
+            long lines = BitBoard.addToLines(BitBoard.lines(pos), cell, digit);
+            int score = worker.minimax(child, lines, cell, depth + 1, false, bound.get() - 1, Integer.MAX_VALUE);
+            bound.accumulateAndGet(score, Math::max);
+            scores[from] = score;
+            workers[from] = worker;
+        }
+
+        private RootTask split(int lo, int hi) {
+            return new RootTask(pos, depth, moves, scores, lo, hi, workers, humanIsOdd, tt, bound);
+        }
+    }
+}
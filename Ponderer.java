@@ -0,0 +1,294 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ponderer.java
+ *
+ * Thinks on the human's time. Once the AI has moved, ponder() queues a search of
+ * the AI's answer to every legal human reply (empty cell x digit left to the
+ * human) on a small pool of low-priority threads. When the real reply comes in,
+ * take() hands over that search's move: at once if it has finished, otherwise as
+ * soon as it does.
+ *
+ * The searches of one ponder() call form a session, owned by the game id the
+ * caller passes. A game has one session at a time: its next ponder() or take()
+ * ends the last one, and forget() ends it when the game is over. Games that reach
+ * the same position share its search: each session holds a reference to it, and
+ * it is only dropped once no session does. Without a game id (NO_GAME) take()
+ * can't tell whose session it is and ends the oldest one holding the position,
+ * which may belong to another game that transposed into it. A dropped
+ * search that hasn't started never runs, and a running one is stopped through
+ * its SearchBudget, since HARD thinks for 200 ms and PERFECT without a solution
+ * table searches to the end of the game. At most maxSessions sessions are kept,
+ * the oldest is ended the same way, so abandoned games don't pile up.
+ *
+ * Pondered moves come from GameEngine.speculativeMove() at the same difficulty,
+ * so they are the moves the AI would have picked anyway; ties are broken with the
+ * pondering thread's own randomness. Only the searches take() serves end up in
+ * the engine's metrics, timed by how long take() waited for them. Thread-safe;
+ * threads = 0 turns it off (ponder() does nothing, take() always misses).
+ */
+final class Ponderer {
+
+    static final int NO_MOVE = -1;
+    static final long NO_GAME = 0;
+
+    private final GameEngine engine;
+    private final ExecutorService pool;     // null => off
+    private final int maxSessions;
+
+    // Pondered positions (AI to move) and the sessions holding them, oldest first;
+    // both guarded by this
+    private final Map<Key, Task> tasks = new HashMap<>();
+    private final LinkedHashSet<Session> sessions = new LinkedHashSet<>();
+    private final Map<Long, Session> byGame = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    private record Key(long pos, boolean aiIsOdd, Difficulty difficulty) {
+    }
+
+    // The searches one ponder() call holds; identity, not contents, tells them apart
+    private static final class Session {
+        final long game;
+        final List<Task> tasks = new ArrayList<>();
+
+        Session(long game) {
+            this.game = game;
+        }
+    }
+
+    // One speculative search; whoever flips started first runs it (or drops it)
+    private final class Task implements Runnable {
+        final Key key;
+        final List<Session> owners = new ArrayList<>(1);    // oldest first, guarded by Ponderer.this
+        int waiting;                                        // take() calls joining it, likewise
+        final AtomicBoolean started = new AtomicBoolean();
+        final CompletableFuture<Integer> move = new CompletableFuture<>();
+        final SearchStats stats = new SearchStats();
+        volatile SearchBudget budget;   // set when it starts
+        volatile boolean dropped;
+
+        Task(Key key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) return;
+            SearchBudget b = engine.budget(key.difficulty());
+            budget = b;
+            if (dropped) b.cancel();    // dropped between the two lines above
+            try {
+                move.complete(engine.speculativeMove(key.pos(), key.aiIsOdd(), key.difficulty(), b,
+                    ThreadLocalRandom.current(), stats));
+            } catch (RuntimeException e) {
+                move.completeExceptionally(e);
+            }
+        }
+
+        // Keeps it from starting, or stops it at its next budget check
+        void drop() {
+            dropped = true;
+            if (started.compareAndSet(false, true)) {
+                cancelled.increment();
+                return;
+            }
+            SearchBudget b = budget;
+            if (b != null && !move.isDone()) {
+                b.cancel();
+                cancelled.increment();
+            }
+        }
+    }
+
+    Ponderer(GameEngine engine, int threads, int maxSessions) {
+        this.engine = engine;
+        this.maxSessions = maxSessions;
+        if (threads <= 0) {
+            pool = null;
+            return;
+        }
+        AtomicInteger ids = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ponder-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);    // real moves come first
+            return t;
+        });
+    }
+
+    // Starts searching the AI's answer to every human reply in pos, where the human
+    // is to move, as game's new session. Replies that end the game need no answer
+    // and are skipped; ones another session is already pondering are shared with it.
+    void ponder(long game, long pos, boolean aiIsOdd, Difficulty difficulty) {
+        if (pool == null || BitBoard.hasLine15(pos)) return;
+        int digits = BitBoard.availableDigits(pos, !aiIsOdd);
+        Session session = new Session(game);
+        List<Task> fresh = new ArrayList<>();
+        synchronized (this) {
+            Session last = byGame.get(game);
+            if (last != null) {
+                end(last, null);
+            }
+            for (long cells = BitBoard.emptyCells(pos); cells != 0; cells &= cells - 1) {
+                int cell = BitBoard.cellAt(cells);
+                for (int ds = digits; ds != 0; ds &= ds - 1) {
+                    long child = BitBoard.place(pos, cell, Integer.numberOfTrailingZeros(ds));
+                    if (BitBoard.hasLine15(child) || BitBoard.pieceCount(child) == BitBoard.CELLS
+                            || BitBoard.availableDigits(child, aiIsOdd) == 0) {
+                        continue;
+                    }
+                    Key key = new Key(child, aiIsOdd, difficulty);
+                    Task task = tasks.get(key);
+                    if (task == null) {
+                        task = new Task(key);
+                        tasks.put(key, task);
+                        fresh.add(task);
+                    }
+                    task.owners.add(session);
+                    session.tasks.add(task);
+                }
+            }
+            if (session.tasks.isEmpty()) return;
+            sessions.add(session);
+            if (game != NO_GAME) {
+                byGame.put(game, session);
+            }
+            while (sessions.size() > maxSessions) {
+                end(sessions.iterator().next(), null);
+            }
+        }
+        searches.add(fresh.size());
+        for (Task task : fresh) {
+            pool.execute(task);
+        }
+    }
+
+    // The pondered AI move in pos, or NO_MOVE if pos wasn't pondered or its search
+    // hadn't started (then searching now is as quick as waiting in the queue; if
+    // other games hold it, it stays queued for them). Ends game's session either
+    // way (for NO_GAME, the oldest session holding pos). On a hit the search's
+    // statistics are copied to stats, with wallNanos the time spent waiting for it,
+    // and recorded in the engine's metrics.
+    int take(long game, long pos, boolean aiIsOdd, Difficulty difficulty, SearchStats stats) {
+        if (pool == null) return NO_MOVE;
+        long start = System.nanoTime();
+        Task task;
+        boolean hit = false;
+        boolean shared = false;
+        synchronized (this) {
+            task = tasks.get(new Key(pos, aiIsOdd, difficulty));
+            Session own = game == NO_GAME ? null : byGame.get(game);
+            if (own == null && task != null) {
+                own = task.owners.get(0);
+            }
+            if (own != null) {
+                end(own, task);
+            }
+            if (task != null) {
+                if (task.owners.isEmpty()) {
+                    tasks.remove(task.key);
+                    hit = !task.started.compareAndSet(false, true);
+                } else if (task.started.get()) {
+                    // Other games still hold it; ending theirs mustn't stop it now
+                    task.waiting++;
+                    shared = hit = true;
+                }
+            }
+        }
+        if (!hit) {
+            misses.increment();
+            return NO_MOVE;
+        }
+        int move;
+        try {
+            move = task.move.join();
+        } catch (RuntimeException e) {
+            misses.increment();
+            return NO_MOVE;
+        } finally {
+            if (shared) {
+                synchronized (this) {
+                    task.waiting--;
+                }
+            }
+        }
+        hits.increment();
+        SearchStats s = task.stats;
+        stats.nodes += s.nodes;
+        stats.ttHits += s.ttHits;
+        stats.ttMisses += s.ttMisses;
+        stats.cutoffs += s.cutoffs;
+        stats.firstMoveCutoffs += s.firstMoveCutoffs;
+        stats.maxDepth = Math.max(stats.maxDepth, s.maxDepth);
+        stats.depth = s.depth;
+        stats.plies = s.plies;
+        stats.score = s.score;
+        stats.wallNanos = System.nanoTime() - start;
+        engine.metrics().record(stats);
+        return move;
+    }
+
+    // Ends game's session, if it has one, for a game that is over
+    synchronized void forget(long game) {
+        Session session = game == NO_GAME ? null : byGame.get(game);
+        if (session != null) {
+            end(session, null);
+        }
+    }
+
+    // Ends a session, dropping the searches no other session holds except keep;
+    // caller holds the lock
+    private void end(Session session, Task keep) {
+        sessions.remove(session);
+        if (session.game != NO_GAME) {
+            byGame.remove(session.game, session);
+        }
+        for (Task task : session.tasks) {
+            task.owners.remove(session);
+            if (task.owners.isEmpty() && task != keep) {
+                tasks.remove(task.key);
+                if (task.waiting == 0) {
+                    task.drop();
+                }
+            }
+        }
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    // Speculative searches queued, and how many of them were dropped before finishing
+    long searches() {
+        return searches.sum();
+    }
+
+    long cancelled() {
+        return cancelled.sum();
+    }
+
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
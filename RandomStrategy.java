@@ -0,0 +1,28 @@
+import java.util.Random;
+
+/**
+ * RandomStrategy.java
+ *
+ * Uniformly random legal moves: the baseline opponent for self-play tournaments.
+ */
+final class RandomStrategy implements MoveStrategy {
+
+    @Override
+    public int chooseMove(long pos, boolean aiIsOdd, Random rand, SearchStats stats) {
+        long cells = BitBoard.emptyCells(pos);
+        int digits = BitBoard.availableDigits(pos, aiIsOdd);
+        int pick = rand.nextInt(Long.bitCount(cells) * Integer.bitCount(digits));
+        for (int k = pick / Integer.bitCount(digits); k > 0; k--) {
+            cells &= cells - 1;
+        }
+        for (int k = pick % Integer.bitCount(digits); k > 0; k--) {
+            digits &= digits - 1;
+        }
+        return BitBoard.move(BitBoard.cellAt(cells), Integer.numberOfTrailingZeros(digits));
+    }
+
+    @Override
+    public String name() {
+        return "random";
+    }
+}
@@ -0,0 +1,321 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RetrogradeSolver.java
+ *
+ * Game-theoretic value of every reachable position of the 0-for-both game, worked
+ * out bottom-up instead of one minimax root at a time.
+ *
+ * Usage: java RetrogradeSolver [threads] [samples]   (default: one per core, 1000)
+ * Exits with status 1 if any sampled position disagrees with minimax, so scripts
+ * can use it as a check.
+ *
+ * Positions are keyed as in SolutionTable: canonical cells (see TranspositionTable)
+ * plus a bit for the side to move, since with 0 shared either side may be to move
+ * in the same cells. The forward pass enumerates them level by level (pieces on
+ * the board) from the empty board with either side to move: each level's
+ * non-terminal positions are expanded in parallel chunks into per-worker key
+ * buffers, which are merged, sorted and deduplicated into the next level. The
+ * backward pass then scores level 9 up to level 0, again in parallel: a terminal
+ * position scores as SolutionTable.resolve() says, any other one as the best of
+ * its children, looked up by key in the next level's open-addressing index.
+ * Values are the usual ones from the side to move's point of view (100 - n: it
+ * wins on move n, -100 + n: it loses, 0: tie).
+ *
+ * Prints, per level, the positions (and how many of them are terminal) with their
+ * wins, ties and losses for the side to move and the time each pass took, then
+ * the empty-board value for each parity moving first. Finally samples positions
+ * at random, weighted by level size, and checks them against full-depth minimax.
+ */
+final class RetrogradeSolver {
+
+    private static final int CHUNK = 4096;      // positions a worker claims at a time
+    private static final long SIDE_BIT = 1L << BitBoard.USED_SHIFT;
+
+    private final ExecutorService pool;
+    private final int threads;
+    private final Level[] levels = new Level[BitBoard.CELLS + 1];
+    private final long[] forwardNanos = new long[BitBoard.CELLS + 1];
+    private final long[] backwardNanos = new long[BitBoard.CELLS + 1];
+
+    RetrogradeSolver(int threads) {
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        RetrogradeSolver solver = new RetrogradeSolver(threads);
+        int mismatches;
+        try {
+            long start = System.nanoTime();
+            solver.solve();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.print(solver.report());
+            System.out.printf(Locale.ROOT, "Solved in %.2f s on %d threads%n", seconds, threads);
+            mismatches = solver.crossCheck(samples, new Random(15));
+        } finally {
+            solver.shutdown();
+        }
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Positions of one level: sorted keys, their values, and an index over the keys
+    private static final class Level {
+        final long[] keys;
+        final byte[] values;
+        final int[] slots;      // key hash -> position + 1, 0 = empty slot
+        final int mask;
+        int terminal;
+        final long[] results = new long[3];     // wins, ties, losses for the side to move
+
+        Level(long[] keys) {
+            this.keys = keys;
+            this.values = new byte[keys.length];
+            int size = Integer.highestOneBit(Math.max(1, keys.length)) << 2;    // load <= 1/2
+            slots = new int[size];
+            mask = size - 1;
+            for (int p = 0; p < keys.length; p++) {
+                int i = hash(keys[p]) & mask;
+                while (slots[i] != 0) i = (i + 1) & mask;
+                slots[i] = p + 1;
+            }
+        }
+
+        int value(long key) {
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                int p = slots[i] - 1;
+                if (p < 0) {
+                    throw new IllegalStateException("Position missing from its level");
+                }
+                if (keys[p] == key) return values[p];
+            }
+        }
+
+        private static int hash(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    }
+
+    // Growable list of keys, one per worker
+    private static final class Keys {
+        long[] a = new long[1 << 12];
+        int size;
+
+        void add(long key) {
+            if (size == a.length) a = Arrays.copyOf(a, size * 2);
+            a[size++] = key;
+        }
+    }
+
+    // Work over positions [0, n) in chunks, one task per thread
+    private interface ChunkTask {
+        void run(int worker, int from, int to);
+    }
+
+    void solve() throws InterruptedException {
+        long start = System.nanoTime();
+        levels[0] = new Level(new long[] {BitBoard.EMPTY & BitBoard.CELL_BITS,
+            (BitBoard.EMPTY & BitBoard.CELL_BITS) | SIDE_BIT});
+        forwardNanos[0] = System.nanoTime() - start;
+        for (int k = 0; k < BitBoard.CELLS; k++) {
+            start = System.nanoTime();
+            levels[k + 1] = new Level(expand(levels[k]));
+            forwardNanos[k + 1] = System.nanoTime() - start;
+        }
+        for (int k = BitBoard.CELLS; k >= 0; k--) {
+            start = System.nanoTime();
+            score(k);
+            backwardNanos[k] = System.nanoTime() - start;
+        }
+    }
+
+    // Sorted, distinct keys of every child of level's non-terminal positions
+    private long[] expand(Level level) throws InterruptedException {
+        Keys[] out = new Keys[threads];
+        for (int w = 0; w < threads; w++) out[w] = new Keys();
+        forEachChunk(level.keys.length, (worker, from, to) -> {
+            Keys keys = out[worker];
+            for (int p = from; p < to; p++) {
+                long key = level.keys[p];
+                boolean moverIsOdd = (key & SIDE_BIT) != 0;
+                long pos = position(key);
+                if (SolutionTable.resolve(pos, moverIsOdd) != SolutionTable.NONE) continue;
+                int digits = BitBoard.availableDigits(pos, moverIsOdd);
+                for (long cells = BitBoard.emptyCells(pos); cells != 0; cells &= cells - 1) {
+                    int cell = BitBoard.cellAt(cells);
+                    for (int ds = digits; ds != 0; ds &= ds - 1) {
+                        long child = BitBoard.place(pos, cell, Integer.numberOfTrailingZeros(ds));
+                        keys.add(TranspositionTable.key(child, !moverIsOdd));
+                    }
+                }
+            }
+        });
+        int total = 0;
+        for (Keys keys : out) total += keys.size;
+        long[] all = new long[total];
+        int n = 0;
+        for (Keys keys : out) {
+            System.arraycopy(keys.a, 0, all, n, keys.size);
+            n += keys.size;
+        }
+        Arrays.parallelSort(all);
+        int distinct = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (i == 0 || all[i] != all[i - 1]) all[distinct++] = all[i];
+        }
+        return Arrays.copyOf(all, distinct);
+    }
+
+    // Values of level k from those of level k + 1
+    private void score(int k) throws InterruptedException {
+        Level level = levels[k];
+        Level next = k < BitBoard.CELLS ? levels[k + 1] : null;
+        long[][] results = new long[threads][3];
+        int[] terminal = new int[threads];
+        forEachChunk(level.keys.length, (worker, from, to) -> {
+            for (int p = from; p < to; p++) {
+                long key = level.keys[p];
+                boolean moverIsOdd = (key & SIDE_BIT) != 0;
+                long pos = position(key);
+                int v = SolutionTable.resolve(pos, moverIsOdd);
+                if (v != SolutionTable.NONE) {
+                    terminal[worker]++;
+                } else {
+                    v = Integer.MIN_VALUE;
+                    int digits = BitBoard.availableDigits(pos, moverIsOdd);
+                    for (long cells = BitBoard.emptyCells(pos); cells != 0; cells &= cells - 1) {
+                        int cell = BitBoard.cellAt(cells);
+                        for (int ds = digits; ds != 0; ds &= ds - 1) {
+                            long child = BitBoard.place(pos, cell, Integer.numberOfTrailingZeros(ds));
+                            v = Math.max(v, -next.value(TranspositionTable.key(child, !moverIsOdd)));
+                        }
+                    }
+                }
+                level.values[p] = (byte) v;
+                results[worker][v > 0 ? 0 : v == 0 ? 1 : 2]++;
+            }
+        });
+        for (int w = 0; w < threads; w++) {
+            level.terminal += terminal[w];
+            for (int r = 0; r < 3; r++) level.results[r] += results[w][r];
+        }
+    }
+
+    private void forEachChunk(int n, ChunkTask task) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int w = 0; w < threads; w++) {
+            int worker = w;
+            futures.add(pool.submit(() -> {
+                for (int from; (from = next.getAndAdd(CHUNK)) < n; ) {
+                    task.run(worker, from, Math.min(n, from + CHUNK));
+                }
+            }));
+        }
+        try {
+            for (Future<?> f : futures) f.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solver worker failed", e.getCause());
+        }
+    }
+
+    // The position a key stands for: its cells plus the used-digit mask they imply
+    static long position(long key) {
+        long pos = key & BitBoard.CELL_BITS;
+        for (int i = 0; i < BitBoard.CELLS; i++) {
+            int d = BitBoard.cell(pos, i);
+            if (d != BitBoard.EMPTY_CELL) pos |= 1L << (BitBoard.USED_SHIFT + d);
+        }
+        return pos;
+    }
+
+    // Value of the empty board with the given side to move
+    int emptyBoardValue(boolean oddMovesFirst) {
+        return levels[0].value((BitBoard.EMPTY & BitBoard.CELL_BITS) | (oddMovesFirst ? SIDE_BIT : 0));
+    }
+
+    String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-6s %10s %10s %10s %10s %10s %10s %10s%n",
+            "level", "positions", "terminal", "wins", "ties", "losses", "fwd ms", "back ms"));
+        long[] total = new long[5];
+        for (int k = 0; k <= BitBoard.CELLS; k++) {
+            Level l = levels[k];
+            sb.append(String.format(Locale.ROOT, "%-6d %10d %10d %10d %10d %10d %10.1f %10.1f%n",
+                k, l.keys.length, l.terminal, l.results[0], l.results[1], l.results[2],
+                forwardNanos[k] / 1e6, backwardNanos[k] / 1e6));
+            total[0] += l.keys.length;
+            total[1] += l.terminal;
+            for (int r = 0; r < 3; r++) total[2 + r] += l.results[r];
+        }
+        sb.append(String.format(Locale.ROOT, "%-6s %10d %10d %10d %10d %10d%n",
+            "total", total[0], total[1], total[2], total[3], total[4]));
+        sb.append("(wins, ties and losses are for the side to move)\n\n");
+        for (boolean odd : new boolean[] {true, false}) {
+            int v = emptyBoardValue(odd);
+            String side = odd ? "odd" : "even";
+            sb.append("Empty board, ").append(side).append(" moves first: ").append(v).append(v > 0
+                ? " (" + side + " wins on move " + MoveAnalyzer.decidedOnMove(v) + ")"
+                : v < 0 ? " (" + side + " loses on move " + MoveAnalyzer.decidedOnMove(v) + ")"
+                : " (tie)").append('\n');
+        }
+        return sb.toString();
+    }
+
+    // Compares samples random non-terminal positions with GameEngine's full-depth
+    // minimax (no solution table); returns the number that disagree
+    int crossCheck(int samples, Random rand) {
+        long[] sizes = new long[BitBoard.CELLS + 1];
+        long total = 0;
+        for (int k = 0; k <= BitBoard.CELLS; k++) {
+            total += levels[k].keys.length;
+            sizes[k] = total;
+        }
+        GameEngine engine = new GameEngine(null, 1);
+        int[] out = new int[BitBoard.CELLS * 10];
+        int checked = 0, mismatches = 0;
+        long start = System.nanoTime();
+        while (checked < samples) {
+            long r = (long) (rand.nextDouble() * total);
+            int k = 0;
+            while (r >= sizes[k]) k++;
+            Level level = levels[k];
+            int p = (int) (r - (k == 0 ? 0 : sizes[k - 1]));
+            long key = level.keys[p];
+            boolean moverIsOdd = (key & SIDE_BIT) != 0;
+            long pos = position(key);
+            if (SolutionTable.resolve(pos, moverIsOdd) != SolutionTable.NONE) continue;
+            SearchStats stats = new SearchStats();
+            engine.bestMoves(pos, moverIsOdd, out, stats);
+            if (stats.score != level.values[p]) {
+                mismatches++;
+                if (mismatches <= 10) {
+                    System.out.printf(Locale.ROOT, "Mismatch at level %d, key %x: retrograde %d, minimax %d%n",
+                        k, key, level.values[p], stats.score);
+                }
+            }
+            checked++;
+        }
+        engine.shutdown();
+        System.out.printf(Locale.ROOT, "Cross-check against minimax: %d positions, %d mismatches (%.2f s)%n",
+            checked, mismatches, (System.nanoTime() - start) / 1e9);
+        return mismatches;
+    }
+
+    void shutdown() {
+        pool.shutdown();
+    }
+}
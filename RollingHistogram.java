@@ -0,0 +1,114 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * RollingHistogram.java
+ *
+ * Lock-free histogram of non-negative longs over a sliding time window, for
+ * percentiles such as p50/p99 search latency.
+ *
+ * Values go into log-linear buckets: exact below 16, then 16 sub-buckets per power
+ * of two, so a percentile is within 1/16 (~6%) of the true value whatever the
+ * magnitude. The window is a ring of slices; a slice is cleared and reused once it
+ * is a full window old, so percentiles cover the last (slices - 1) to (slices)
+ * slice lengths. A value recorded while its slice is being recycled may be lost,
+ * which is fine for monitoring.
+ */
+final class RollingHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;   // values are < 2^63
+
+    private final long sliceNanos;
+    private final AtomicLongArray[] counts;
+    private final AtomicLong[] sliceIds;    // which time slice each ring entry holds
+
+    RollingHistogram(int slices, long sliceNanos) {
+        this.sliceNanos = sliceNanos;
+        counts = new AtomicLongArray[slices];
+        sliceIds = new AtomicLong[slices];
+        for (int i = 0; i < slices; i++) {
+            counts[i] = new AtomicLongArray(BUCKETS);
+            sliceIds[i] = new AtomicLong(-1);
+        }
+    }
+
+    void record(long value) {
+        counts[slice(System.nanoTime() / sliceNanos)].incrementAndGet(bucket(Math.max(0, value)));
+    }
+
+    // Number of values in the window
+    long count() {
+        long now = System.nanoTime() / sliceNanos;
+        long n = 0;
+        for (int s = 0; s < counts.length; s++) {
+            if (!inWindow(s, now)) continue;
+            for (int b = 0; b < BUCKETS; b++) {
+                n += counts[s].get(b);
+            }
+        }
+        return n;
+    }
+
+    // Value at quantile q (0..1) over the window, 0 if it is empty
+    long percentile(double q) {
+        long now = System.nanoTime() / sliceNanos;
+        long[] merged = new long[BUCKETS];
+        long total = 0;
+        for (int s = 0; s < counts.length; s++) {
+            if (!inWindow(s, now)) continue;
+            for (int b = 0; b < BUCKETS; b++) {
+                long c = counts[s].get(b);
+                merged[b] += c;
+                total += c;
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += merged[b];
+            if (seen >= rank) return upperBound(b);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    // Ring entry for time slice id, clearing it first if it still holds an older slice
+    private int slice(long id) {
+        int s = (int) (id % counts.length);
+        long held = sliceIds[s].get();
+        if (held != id && sliceIds[s].compareAndSet(held, id)) {
+            AtomicLongArray c = counts[s];
+            for (int b = 0; b < BUCKETS; b++) {
+                c.set(b, 0);
+            }
+        }
+        return s;
+    }
+
+    private boolean inWindow(int s, long now) {
+        return now - sliceIds[s].get() < counts.length;
+    }
+
+    static int bucket(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(v);    // >= SUB_BITS
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Largest value that falls into bucket b
+    static long upperBound(int b) {
+        if (b < SUB_BUCKETS) {
+            return b;
+        }
+        int exp = b / SUB_BUCKETS + SUB_BITS - 1;
+        long low = (long) (SUB_BUCKETS + b % SUB_BUCKETS) << (exp - SUB_BITS);
+        return low + (1L << (exp - SUB_BITS)) - 1;
+    }
+}
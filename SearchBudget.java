@@ -0,0 +1,51 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SearchBudget.java
+ *
+ * Limits for one anytime search: a deadline, a node count, or both, plus a flag
+ * any thread can raise to stop the search early (cooperative: the search polls
+ * it every so many nodes, see MinimaxSearch). The clock starts when the budget
+ * is created.
+ */
+final class SearchBudget {
+
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private final long deadline;    // System.nanoTime() to stop at, or NO_LIMIT
+    private final long maxNodes;
+    private volatile boolean cancelled;
+
+    private SearchBudget(long nanos, long maxNodes) {
+        this.deadline = nanos == NO_LIMIT ? NO_LIMIT : System.nanoTime() + nanos;
+        this.maxNodes = maxNodes;
+    }
+
+    static SearchBudget unlimited() {
+        return new SearchBudget(NO_LIMIT, NO_LIMIT);
+    }
+
+    static SearchBudget ofMillis(long millis) {
+        return new SearchBudget(TimeUnit.MILLISECONDS.toNanos(millis), NO_LIMIT);
+    }
+
+    static SearchBudget ofNodes(long maxNodes) {
+        return new SearchBudget(NO_LIMIT, maxNodes);
+    }
+
+    // Whichever limit comes first; 0 leaves a limit off
+    static SearchBudget of(long millis, long maxNodes) {
+        return new SearchBudget(millis == 0 ? NO_LIMIT : TimeUnit.MILLISECONDS.toNanos(millis),
+            maxNodes == 0 ? NO_LIMIT : maxNodes);
+    }
+
+    // Stops the search at its next check; it still returns its best move so far
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean exhausted(long nodes) {
+        return cancelled || nodes >= maxNodes
+            || (deadline != NO_LIMIT && System.nanoTime() - deadline >= 0);
+    }
+}
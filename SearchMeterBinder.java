@@ -0,0 +1,122 @@
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * SearchMeterBinder.java
+ *
+ * Publishes the engine's SearchMetrics as Micrometer meters in the move service:
+ * - gameof15.search               : searches and total search time (function timer)
+ * - gameof15.search.nodes         : nodes searched (counter)
+ * - gameof15.search.cutoffs       : alpha-beta cutoffs, tagged first=true|false
+ * - gameof15.search.latency       : p50/p99 move latency over the last minute,
+ *                                   tagged quantile and depth (pieces on the board, or "all")
+ * - gameof15.search.nodes.per.move: p50/p99 nodes per move over the last minute,
+ *                                   tagged quantile and depth
+ * - gameof15.ponder               : AI moves served by the Ponderer (result=hit) or
+ *                                   searched on request (result=miss)
+ * - gameof15.ponder.searches      : speculative searches queued, tagged
+ *                                   state=queued|cancelled
+ * - gameof15.analysis.cache       : hint lookups answered from the MoveAnalyzer's
+ *                                   cache (result=hit) or searched (result=miss)
+ * - gameof15.analysis.cache.evictions, .size, .hit.ratio : LRU evictions, cached
+ *                                   positions, share of lookups that hit
+ *
+ * The quantiles come from SearchMetrics' own rolling histograms, so they read the
+ * same as over JMX whatever registry the service exports to.
+ */
+final class SearchMeterBinder implements MeterBinder {
+
+    private static final double[] QUANTILES = {0.5, 0.99};
+
+    private final SearchMetrics metrics;
+    private final Ponderer ponderer;
+    private final MoveAnalyzer analyzer;
+
+    SearchMeterBinder(SearchMetrics metrics, Ponderer ponderer, MoveAnalyzer analyzer) {
+        this.metrics = metrics;
+        this.ponderer = ponderer;
+        this.analyzer = analyzer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("gameof15.search", metrics,
+                SearchMetrics::getSearches, SearchMetrics::wallNanos, TimeUnit.NANOSECONDS)
+            .description("AI move searches")
+            .register(registry);
+        FunctionCounter.builder("gameof15.search.nodes", metrics, SearchMetrics::getNodes)
+            .description("Minimax nodes searched")
+            .baseUnit("nodes")
+            .register(registry);
+        FunctionCounter.builder("gameof15.search.cutoffs", metrics, m -> m.getCutoffs() - m.getFirstMoveCutoffs())
+            .tag("first", "false")
+            .description("Alpha-beta cutoffs")
+            .register(registry);
+        FunctionCounter.builder("gameof15.search.cutoffs", metrics, SearchMetrics::getFirstMoveCutoffs)
+            .tag("first", "true")
+            .description("Alpha-beta cutoffs")
+            .register(registry);
+        FunctionCounter.builder("gameof15.ponder", ponderer, Ponderer::hits)
+            .tag("result", "hit")
+            .description("AI moves looked up in the ponderer")
+            .register(registry);
+        FunctionCounter.builder("gameof15.ponder", ponderer, Ponderer::misses)
+            .tag("result", "miss")
+            .description("AI moves looked up in the ponderer")
+            .register(registry);
+        FunctionCounter.builder("gameof15.ponder.searches", ponderer, Ponderer::searches)
+            .tag("state", "queued")
+            .description("Speculative searches of human replies")
+            .register(registry);
+        FunctionCounter.builder("gameof15.ponder.searches", ponderer, Ponderer::cancelled)
+            .tag("state", "cancelled")
+            .description("Speculative searches of human replies")
+            .register(registry);
+        FunctionCounter.builder("gameof15.analysis.cache", analyzer, MoveAnalyzer::hits)
+            .tag("result", "hit")
+            .description("Move analyses looked up in the cache")
+            .register(registry);
+        FunctionCounter.builder("gameof15.analysis.cache", analyzer, MoveAnalyzer::misses)
+            .tag("result", "miss")
+            .description("Move analyses looked up in the cache")
+            .register(registry);
+        FunctionCounter.builder("gameof15.analysis.cache.evictions", analyzer, MoveAnalyzer::evictions)
+            .description("Move analyses dropped from the cache to make room")
+            .register(registry);
+        Gauge.builder("gameof15.analysis.cache.size", analyzer, MoveAnalyzer::size)
+            .description("Positions in the move analysis cache")
+            .register(registry);
+        Gauge.builder("gameof15.analysis.cache.hit.ratio", analyzer, MoveAnalyzer::hitRatio)
+            .description("Share of move analyses answered from the cache")
+            .register(registry);
+
+        for (double q : QUANTILES) {
+            String quantile = Double.toString(q);
+            TimeGauge.builder("gameof15.search.latency", metrics, TimeUnit.NANOSECONDS, m -> m.latencyNanos(q))
+                .tag("quantile", quantile)
+                .tag("depth", "all")
+                .description("AI move latency over the last minute")
+                .register(registry);
+            for (int d = 0; d < BitBoard.CELLS; d++) {
+                int depth = d;
+                TimeGauge.builder("gameof15.search.latency", metrics, TimeUnit.NANOSECONDS, m -> m.latencyNanos(depth, q))
+                    .tag("quantile", quantile)
+                    .tag("depth", Integer.toString(depth))
+                    .description("AI move latency over the last minute")
+                    .register(registry);
+                Gauge.builder("gameof15.search.nodes.per.move", metrics, m -> m.nodesPerMove(depth, q))
+                    .tag("quantile", quantile)
+                    .tag("depth", Integer.toString(depth))
+                    .description("Minimax nodes per AI move over the last minute")
+                    .baseUnit("nodes")
+                    .register(registry);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * SearchMetrics.java
+ *
+ * Running totals and rolling histograms over every search a GameEngine has done:
+ * move latency overall and per board depth, and nodes per move per board depth.
+ * Read over JMX (see SearchMetricsMXBean, registerMBean()) and, in the move
+ * service, as Micrometer meters (see SearchMeterBinder).
+ *
+ * record() is called on the search threads and never blocks.
+ */
+final class SearchMetrics implements SearchMetricsMXBean {
+
+    static final String OBJECT_NAME = "gameof15:type=SearchMetrics";
+
+    // Percentiles cover 6 x 10 s, i.e. roughly the last minute
+    private static final int SLICES = 6;
+    private static final long SLICE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder cutoffs = new LongAdder();
+    private final LongAdder firstMoveCutoffs = new LongAdder();
+    private final LongAdder wallNanos = new LongAdder();
+
+    private final RollingHistogram latency = histogram();
+    private final RollingHistogram[] latencyByDepth = new RollingHistogram[BitBoard.CELLS];
+    private final RollingHistogram[] nodesByDepth = new RollingHistogram[BitBoard.CELLS];
+
+    SearchMetrics() {
+        for (int d = 0; d < BitBoard.CELLS; d++) {
+            latencyByDepth[d] = histogram();
+            nodesByDepth[d] = histogram();
+        }
+    }
+
+    private static RollingHistogram histogram() {
+        return new RollingHistogram(SLICES, SLICE_NANOS);
+    }
+
+    void record(SearchStats stats) {
+        searches.increment();
+        nodes.add(stats.nodes);
+        cutoffs.add(stats.cutoffs);
+        firstMoveCutoffs.add(stats.firstMoveCutoffs);
+        wallNanos.add(stats.wallNanos);
+        latency.record(stats.wallNanos);
+        latencyByDepth[stats.depth].record(stats.wallNanos);
+        nodesByDepth[stats.depth].record(stats.nodes);
+    }
+
+    // Makes this the instance behind OBJECT_NAME on the platform MBean server,
+    // replacing whichever engine registered before
+    void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            try {
+                server.registerMBean(this, name);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(name);
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Can't register " + OBJECT_NAME, e);
+        }
+    }
+
+    long wallNanos() {
+        return wallNanos.sum();
+    }
+
+    // Latency in nanoseconds at quantile q over the last minute
+    long latencyNanos(double q) {
+        return latency.percentile(q);
+    }
+
+    long latencyNanos(int depth, double q) {
+        return latencyByDepth[depth].percentile(q);
+    }
+
+    long nodesPerMove(int depth, double q) {
+        return nodesByDepth[depth].percentile(q);
+    }
+
+    @Override
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public long getCutoffs() {
+        return cutoffs.sum();
+    }
+
+    @Override
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs.sum();
+    }
+
+    @Override
+    public long getLatencyP50Micros() {
+        return latencyNanos(0.5) / 1000;
+    }
+
+    @Override
+    public long getLatencyP99Micros() {
+        return latencyNanos(0.99) / 1000;
+    }
+
+    @Override
+    public long[] getLatencyP50MicrosByDepth() {
+        return byDepth(latencyByDepth, 0.5, 1000);
+    }
+
+    @Override
+    public long[] getLatencyP99MicrosByDepth() {
+        return byDepth(latencyByDepth, 0.99, 1000);
+    }
+
+    @Override
+    public long[] getNodesP50ByDepth() {
+        return byDepth(nodesByDepth, 0.5, 1);
+    }
+
+    @Override
+    public long[] getNodesP99ByDepth() {
+        return byDepth(nodesByDepth, 0.99, 1);
+    }
+
+    private static long[] byDepth(RollingHistogram[] histograms, double q, long divisor) {
+        long[] values = new long[histograms.length];
+        for (int d = 0; d < histograms.length; d++) {
+            values[d] = histograms[d].percentile(q) / divisor;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * SearchMetricsMXBean.java
+ *
+ * JMX view of SearchMetrics, registered as gameof15:type=SearchMetrics.
+ * Latencies are in microseconds; the ByDepth arrays are indexed by the number of
+ * pieces on the board when the search started (0..8). Percentiles cover the last
+ * minute.
+ */
+public interface SearchMetricsMXBean {
+
+    long getSearches();
+
+    long getNodes();
+
+    long getCutoffs();
+
+    long getFirstMoveCutoffs();
+
+    long getLatencyP50Micros();
+
+    long getLatencyP99Micros();
+
+    long[] getLatencyP50MicrosByDepth();
+
+    long[] getLatencyP99MicrosByDepth();
+
+    long[] getNodesP50ByDepth();
+
+    long[] getNodesP99ByDepth();
+}
@@ -0,0 +1,33 @@
+/**
+ * SearchStats.java
+ *
+ * Statistics for one AI move search. Filled in by GameEngine from the MinimaxSearch
+ * instance(s) that ran it; a solution table lookup leaves the search counters at
+ * zero but still records the depth, score and time.
+ */
+final class SearchStats {
+
+    long nodes;             // minimax calls
+    long ttHits;            // transposition table probes that found the position
+    long ttMisses;          // transposition table probes that didn't
+    long cutoffs;           // alpha-beta cutoffs
+    long firstMoveCutoffs;  // cutoffs on the first move tried (a measure of move ordering)
+    int maxDepth;           // most pieces on the board at any node searched
+    int depth;              // pieces on the board when the search started
+    int plies;              // plies ahead of depth searched to (anytime search; 0 = full depth)
+    int score;              // value of the best moves for the side to move
+    long wallNanos;         // elapsed time of the whole search
+
+    void add(MinimaxSearch search) {
+        nodes += search.nodes;
+        ttHits += search.ttHits;
+        ttMisses += search.ttMisses;
+        cutoffs += search.cutoffs;
+        firstMoveCutoffs += search.firstMoveCutoffs;
+        maxDepth = Math.max(maxDepth, search.maxDepth);
+    }
+
+    long positionsPerSecond() {
+        return nodes * 1_000_000_000L / Math.max(1, wallNanos);
+    }
+}
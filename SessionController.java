@@ -0,0 +1,151 @@
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * SessionController.java
+ *
+ * Server-side games kept in the SessionStore, for clients that would rather send
+ * one move than the whole board.
+ *
+ * POST   /api/games            {"parity": "odd", "order": "ai", "difficulty": "easy"}
+ *                                                        -> new game (AI moves if it's first)
+ * POST   /api/games/{id}/move  {"row": 0, "col": 2, "digit": 7}  -> human move + AI reply
+ * DELETE /api/games/{id}
+ * GET    /api/games/stats      -> live sessions, evictions, memory
+ *
+ * Ids are hex strings and double as the game's Ponderer id. Finished games are
+ * dropped right away; idle ones expire after the store's TTL and answer 404 from
+ * then on. A move answers 409 if another move in the same game was saved first,
+ * or the game expired while the AI was thinking; the store is left as the other
+ * request made it.
+ */
+@RestController
+@CrossOrigin
+public class SessionController {
+
+    private final SessionStore store;
+    private final MoveController moves;
+    private final Ponderer ponderer;
+
+    public SessionController(SessionStore store, MoveController moves, Ponderer ponderer) {
+        this.store = store;
+        this.moves = moves;
+        this.ponderer = ponderer;
+    }
+
+    public record NewGameRequest(String parity, String order, String difficulty) {
+    }
+
+    public record HumanMove(int row, int col, int digit) {
+    }
+
+    public record GameResponse(String id, int[] board, String status, String message, MoveController.AiMove aiMove) {
+    }
+
+    public record StoreStats(long liveSessions, long ttlEvictions, long capacityEvictions,
+                             long allocatedBytes, double bytesPerSession) {
+    }
+
+    @PostMapping("/api/games")
+    public GameResponse newGame(@RequestBody NewGameRequest request) {
+        boolean humanIsOdd = MoveController.parseChoice(request.parity(), "odd", "even", "parity");
+        boolean humanFirst = MoveController.parseChoice(request.order(), "human", "ai", "order");
+        Difficulty difficulty = MoveController.parseDifficulty(request.difficulty());
+        long state = SessionStore.pack(BitBoard.EMPTY, humanIsOdd, humanFirst, difficulty);
+        // Stored before the AI's first move, so its pondering is keyed by the game id
+        long id = store.create(state);
+        if (humanFirst) {
+            return toGame(id, new MoveController.MoveResponse(MoveController.toBoard(BitBoard.EMPTY),
+                "ongoing", "Your move!", null));
+        }
+        MoveController.Reply reply = moves.reply(id, BitBoard.EMPTY, humanIsOdd, false, difficulty);
+        if (!store.update(id, state, SessionStore.pack(reply.pos(), humanIsOdd, humanFirst, difficulty))) {
+            ponderer.forget(id);
+            throw conflict();
+        }
+        return toGame(id, reply.response());
+    }
+
+    @PostMapping("/api/games/{id}/move")
+    public GameResponse move(@PathVariable("id") String id, @RequestBody HumanMove move) {
+        long key = parseId(id);
+        long state = store.get(key);
+        if (state == SessionStore.NO_SESSION) {
+            throw notFound();
+        }
+        boolean humanIsOdd = SessionStore.humanIsOdd(state);
+        boolean humanFirst = SessionStore.humanFirst(state);
+        Difficulty difficulty = SessionStore.difficulty(state);
+        long pos = SessionStore.position(state);
+
+        boolean humanToMove = (BitBoard.pieceCount(pos) % 2 == 0) == humanFirst;
+        if (!humanToMove) {
+            throw MoveController.badRequest("It's the AI's turn");
+        }
+        int r = move.row(), c = move.col(), d = move.digit();
+        if (r < 0 || r > 2 || c < 0 || c > 2) {
+            throw MoveController.badRequest("Row/Col must be 0..2");
+        }
+        if (!BitBoard.isEmpty(pos, r * 3 + c)) {
+            throw MoveController.badRequest("That cell is already occupied");
+        }
+        if (d < 0 || d > 9 || (BitBoard.availableDigits(pos, humanIsOdd) & (1 << d)) == 0) {
+            throw MoveController.badRequest("Digit " + d + " isn't available to you");
+        }
+
+        // Only the move made from the state read above counts: a concurrent move in
+        // the same game, or the game expiring meanwhile, makes this one a conflict
+        MoveController.Reply reply = moves.reply(key, BitBoard.place(pos, r * 3 + c, d), humanIsOdd, humanFirst,
+            difficulty);
+        boolean saved = reply.response().status().equals("ongoing")
+            ? store.update(key, state, SessionStore.pack(reply.pos(), humanIsOdd, humanFirst, difficulty))
+            : store.remove(key, state);
+        if (!saved) {
+            throw conflict();
+        }
+        return toGame(key, reply.response());
+    }
+
+    @DeleteMapping("/api/games/{id}")
+    public void delete(@PathVariable("id") String id) {
+        long key = parseId(id);
+        ponderer.forget(key);
+        if (!store.remove(key)) {
+            throw notFound();
+        }
+    }
+
+    @GetMapping("/api/games/stats")
+    public StoreStats stats() {
+        return new StoreStats(store.liveSessions(), store.ttlEvictions(), store.capacityEvictions(),
+            store.allocatedBytes(), store.bytesPerSession());
+    }
+
+    private static GameResponse toGame(long id, MoveController.MoveResponse r) {
+        return new GameResponse(Long.toHexString(id), r.board(), r.status(), r.message(), r.aiMove());
+    }
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseUnsignedLong(id, 16);
+        } catch (NumberFormatException e) {
+            throw notFound();
+        }
+    }
+
+    private static ResponseStatusException conflict() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+            "Another move in this game was made first, or the game expired");
+    }
+
+    private static ResponseStatusException notFound() {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "No such game (it may have expired)");
+    }
+}
@@ -0,0 +1,320 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SessionStore.java
+ *
+ * In-memory store for many concurrent games, keyed by a random non-zero game id.
+ *
+ * A whole game packs into one long (see pack()): the BitBoard position in bits
+ * 0..45, the human's parity in bit 46, the turn order in bit 47 and the AI's
+ * difficulty in bits 48..49. The move count
+ * is the number of pieces on the board, so it isn't stored. Each session costs 20
+ * bytes of slot (id, state, last-access second) plus open-addressing slack.
+ *
+ * Sessions are spread over lock-striped segments, each a linear-probing table
+ * with backward-shift deletion (no tombstones) that doubles as it fills, up to
+ * its share of the hard cap. The shares add up to the cap exactly, so the store
+ * never holds more than maxSessions. Ids are random, so segments fill evenly: at
+ * the default cap of a million the first eviction comes at about 98% full (small
+ * caps start evicting sooner). Sessions idle for longer than the TTL are dropped
+ * when touched and by sweep(); a full segment evicts the least recently used of
+ * a small sample of its sessions.
+ */
+final class SessionStore {
+
+    static final long NO_SESSION = -1L;
+
+    private static final long HUMAN_ODD_BIT = 1L << 46;
+    private static final long HUMAN_FIRST_BIT = 1L << 47;
+    private static final int DIFFICULTY_SHIFT = 48;
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+    private static final int BYTES_PER_SLOT = 8 + 8 + 4;
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_SLOTS = 1 << 10;
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    private final int ttlSeconds;
+    private final long epoch = System.nanoTime();
+
+    private final LongAdder ttlEvictions = new LongAdder();
+    private final LongAdder capacityEvictions = new LongAdder();
+
+    SessionStore(int maxSessions, int ttlSeconds) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("maxSessions must be at least 1");
+        }
+        this.ttlSeconds = ttlSeconds;
+        // Shares differ by at most one and add up to the cap exactly
+        int share = maxSessions / segments.length;
+        int extra = maxSessions % segments.length;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(share + (i < extra ? 1 : 0));
+        }
+    }
+
+    static long pack(long position, boolean humanIsOdd, boolean humanFirst, Difficulty difficulty) {
+        long state = position | (long) difficulty.ordinal() << DIFFICULTY_SHIFT;
+        if (humanIsOdd) state |= HUMAN_ODD_BIT;
+        if (humanFirst) state |= HUMAN_FIRST_BIT;
+        return state;
+    }
+
+    static long position(long state) {
+        return state & (HUMAN_ODD_BIT - 1);
+    }
+
+    static boolean humanIsOdd(long state) {
+        return (state & HUMAN_ODD_BIT) != 0;
+    }
+
+    static boolean humanFirst(long state) {
+        return (state & HUMAN_FIRST_BIT) != 0;
+    }
+
+    static Difficulty difficulty(long state) {
+        return DIFFICULTIES[(int) (state >>> DIFFICULTY_SHIFT) & 0x3];
+    }
+
+    // Stores a new game and returns its id (ids that land in a segment with no
+    // share of a small cap are drawn again)
+    long create(long state) {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        while (true) {
+            long id = rand.nextLong();
+            if (id != 0 && segmentFor(id).insert(id, state, now())) {
+                return id;
+            }
+        }
+    }
+
+    // State of a live game, or NO_SESSION; counts as an access
+    long get(long id) {
+        return id == 0 ? NO_SESSION : segmentFor(id).get(id, now());
+    }
+
+    // Replaces the state of a live game if it is still expected; false if another
+    // update got there first, or the game has expired or never existed
+    boolean update(long id, long expected, long state) {
+        return id != 0 && segmentFor(id).update(id, expected, state, now());
+    }
+
+    boolean remove(long id) {
+        return id != 0 && segmentFor(id).remove(id, NO_SESSION);
+    }
+
+    // Removes a game only if its state is still expected, like update()
+    boolean remove(long id, long expected) {
+        return id != 0 && segmentFor(id).remove(id, expected);
+    }
+
+    // Drops every session idle for longer than the TTL and returns how many
+    int sweep() {
+        int now = now();
+        int evicted = 0;
+        for (Segment s : segments) {
+            evicted += s.sweep(now);
+        }
+        return evicted;
+    }
+
+    long liveSessions() {
+        long live = 0;
+        for (Segment s : segments) {
+            synchronized (s) {
+                live += s.size;
+            }
+        }
+        return live;
+    }
+
+    long ttlEvictions() {
+        return ttlEvictions.sum();
+    }
+
+    long capacityEvictions() {
+        return capacityEvictions.sum();
+    }
+
+    // Bytes held by the slot arrays, including empty slots
+    long allocatedBytes() {
+        long bytes = 0;
+        for (Segment s : segments) {
+            synchronized (s) {
+                bytes += (long) s.ids.length * BYTES_PER_SLOT;
+            }
+        }
+        return bytes;
+    }
+
+    double bytesPerSession() {
+        long live = liveSessions();
+        return live == 0 ? 0 : (double) allocatedBytes() / live;
+    }
+
+    private int now() {
+        return (int) ((System.nanoTime() - epoch) / 1_000_000_000L);
+    }
+
+    private static long mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private Segment segmentFor(long id) {
+        return segments[(int) (mix(id) >>> (64 - SEGMENT_BITS))];
+    }
+
+    private final class Segment {
+        final int maxSize;
+        final int maxSlots;
+        long[] ids = new long[INITIAL_SLOTS];
+        long[] states = new long[INITIAL_SLOTS];
+        int[] touched = new int[INITIAL_SLOTS];
+        int mask = INITIAL_SLOTS - 1;
+        int size;
+
+        Segment(int maxSize) {
+            this.maxSize = maxSize;
+            // Largest table needed to hold maxSize at <= 3/4 load
+            int slots = INITIAL_SLOTS;
+            while (slots - (slots >> 2) < maxSize) slots <<= 1;
+            this.maxSlots = slots;
+        }
+
+        synchronized boolean insert(long id, long state, int now) {
+            if (maxSize == 0 || find(id) >= 0) {
+                return false;
+            }
+            if (size >= maxSize) {
+                evictOne(now);
+            } else if (size + 1 > ids.length - (ids.length >> 2) && ids.length < maxSlots) {
+                resize(ids.length << 1);
+            }
+            int i = home(id);
+            while (ids[i] != 0) i = (i + 1) & mask;
+            ids[i] = id;
+            states[i] = state;
+            touched[i] = now;
+            size++;
+            return true;
+        }
+
+        synchronized long get(long id, int now) {
+            int i = live(id, now);
+            if (i < 0) return NO_SESSION;
+            touched[i] = now;
+            return states[i];
+        }
+
+        synchronized boolean update(long id, long expected, long state, int now) {
+            int i = live(id, now);
+            if (i < 0 || states[i] != expected) return false;
+            states[i] = state;
+            touched[i] = now;
+            return true;
+        }
+
+        // expected = NO_SESSION removes whatever the state
+        synchronized boolean remove(long id, long expected) {
+            int i = find(id);
+            if (i < 0 || (expected != NO_SESSION && states[i] != expected)) return false;
+            removeAt(i);
+            return true;
+        }
+
+        synchronized int sweep(int now) {
+            int evicted = 0;
+            // removeAt() shifts a later entry into slot i, so recheck i before moving on
+            for (int i = 0; i < ids.length; ) {
+                if (ids[i] != 0 && now - touched[i] > ttlSeconds) {
+                    removeAt(i);
+                    evicted++;
+                } else {
+                    i++;
+                }
+            }
+            ttlEvictions.add(evicted);
+            return evicted;
+        }
+
+        // Slot of id if it's there and not expired (expired entries are dropped), else -1
+        private int live(long id, int now) {
+            int i = find(id);
+            if (i >= 0 && now - touched[i] > ttlSeconds) {
+                removeAt(i);
+                ttlEvictions.increment();
+                return -1;
+            }
+            return i;
+        }
+
+        private int find(long id) {
+            for (int i = home(id); ids[i] != 0; i = (i + 1) & mask) {
+                if (ids[i] == id) return i;
+            }
+            return -1;
+        }
+
+        private int home(long id) {
+            return (int) mix(id) & mask;
+        }
+
+        // Drops the least recently used of a few sessions, preferring an expired one
+        private void evictOne(int now) {
+            int start = ThreadLocalRandom.current().nextInt(ids.length);
+            int victim = -1;
+            for (int n = 0, i = start; n < EVICTION_SAMPLE; i = (i + 1) & mask) {
+                if (ids[i] == 0) continue;
+                if (victim < 0 || touched[i] < touched[victim]) victim = i;
+                n++;
+            }
+            if (now - touched[victim] > ttlSeconds) {
+                ttlEvictions.increment();
+            } else {
+                capacityEvictions.increment();
+            }
+            removeAt(victim);
+        }
+
+        // Backward-shift deletion: pull later entries of the probe run into the hole
+        private void removeAt(int hole) {
+            int j = hole;
+            while (true) {
+                j = (j + 1) & mask;
+                if (ids[j] == 0) break;
+                int k = home(ids[j]);
+                boolean stays = hole <= j ? (hole < k && k <= j) : (hole < k || k <= j);
+                if (!stays) {
+                    ids[hole] = ids[j];
+                    states[hole] = states[j];
+                    touched[hole] = touched[j];
+                    hole = j;
+                }
+            }
+            ids[hole] = 0;
+            states[hole] = 0;
+            touched[hole] = 0;
+            size--;
+        }
+
+        private void resize(int slots) {
+            long[] oldIds = ids;
+            long[] oldStates = states;
+            int[] oldTouched = touched;
+            ids = new long[slots];
+            states = new long[slots];
+            touched = new int[slots];
+            mask = slots - 1;
+            for (int o = 0; o < oldIds.length; o++) {
+                if (oldIds[o] == 0) continue;
+                int i = home(oldIds[o]);
+                while (ids[i] != 0) i = (i + 1) & mask;
+                ids[i] = oldIds[o];
+                states[i] = oldStates[o];
+                touched[i] = oldTouched[o];
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SolutionTable.java
+ *
+ * Complete solution of the 0-for-both game, computed offline and read back through
+ * a read-only memory mapping, so every JVM on a host shares the same page-cache copy.
+ *
+ * Usage (offline): java SolutionTable [file]   (default: gameof15.solution)
+ *
+ * The solver walks every position reachable from the empty board with either parity
+ * moving first and stores the minimax value from the side to move's point of view:
+ * 100 - n for a win on move n, -(100 - n) for a loss, 0 for a tie. Positions are
+ * canonicalized over the 8 board symmetries (see TranspositionTable) and positions
+ * whose value is immediate (a line of 15, full board, mover out of digits) are not
+ * stored at all; resolve() answers those.
+ *
+ * File layout (big-endian): int magic, int version, int slotBits, int count, then
+ * 2^slotBits long slots of an open-addressing table, each key (37 bits) << 8 | value.
+ * Best moves aren't written out: bestMoves() recovers the full set of equally good
+ * moves with one lookup per child, which keeps the AI's random tie-break intact.
+ */
+final class SolutionTable {
+
+    static final String DEFAULT_FILE = "gameof15.solution";
+    static final int NONE = Integer.MIN_VALUE;     // resolve(): the position needs a lookup
+
+    private static final int MAGIC = 0x47313553;   // "G15S"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BITS = 23;       // ~7.0M positions at 0.83 load
+
+    private final MappedByteBuffer slots;
+    private final int mask;
+    private final int count;
+
+    private SolutionTable(MappedByteBuffer slots, int slotBits, int count) {
+        this.slots = slots;
+        this.mask = (1 << slotBits) - 1;
+        this.count = count;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args.length > 0 ? args[0] : DEFAULT_FILE);
+        long start = System.nanoTime();
+        Solver solver = new Solver(SLOT_BITS);
+        int emptyOdd = solver.solve(BitBoard.EMPTY, true);
+        int emptyEven = solver.solve(BitBoard.EMPTY, false);
+        solver.write(file);
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Solved " + solver.count + " positions in " + ms + " ms -> " + file);
+        System.out.println("Empty board, ODD to move: " + emptyOdd + ", EVEN to move: " + emptyEven);
+    }
+
+    // Maps a solution file written by main(), or returns null if there is none
+    static SolutionTable openIfPresent(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+                throw new IOException("Not a Game of 15 solution file: " + file);
+            }
+            int slotBits = buf.getInt(8);
+            if (ch.size() != HEADER_BYTES + ((long) 8 << slotBits)) {
+                throw new IOException("Truncated solution file: " + file);
+            }
+            return new SolutionTable(buf, slotBits, buf.getInt(12));
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    // Value of pos from the point of view of the side to move
+    int value(long pos, boolean moverIsOdd) {
+        int v = resolve(pos, moverIsOdd);
+        if (v != NONE) {
+            return v;
+        }
+        long key = key(pos, moverIsOdd);
+        for (int i = index(key); ; i = (i + 1) & mask) {
+            long slot = slots.getLong(HEADER_BYTES + (i << 3));
+            if (slot == 0) {
+                throw new IllegalStateException("Position missing from solution table");
+            }
+            if ((slot >>> 8) == key) {
+                return (byte) slot;
+            }
+        }
+    }
+
+    // Fills out with every best move for the side to move (packed as BitBoard moves)
+    // and returns how many there are
+    int bestMoves(long pos, boolean moverIsOdd, int[] out) {
+        int digits = BitBoard.availableDigits(pos, moverIsOdd);
+        int best = Integer.MIN_VALUE;
+        int n = 0;
+        for (long cells = BitBoard.emptyCells(pos); cells != 0; cells &= cells - 1) {
+            int cell = BitBoard.cellAt(cells);
+            for (int ds = digits; ds != 0; ds &= ds - 1) {
+                int d = Integer.numberOfTrailingZeros(ds);
+                int score = -value(BitBoard.place(pos, cell, d), !moverIsOdd);
+                if (score > best) {
+                    best = score;
+                    n = 0;
+                }
+                if (score == best) {
+                    out[n++] = BitBoard.move(cell, d);
+                }
+            }
+        }
+        return n;
+    }
+
+    // Value of positions that need no search, or NONE
+    static int resolve(long pos, boolean moverIsOdd) {
+        int pieces = BitBoard.pieceCount(pos);
+        if (BitBoard.hasLine15(pos)) {
+            return -(100 - pieces);   // the previous mover completed a line
+        }
+        if (pieces == BitBoard.CELLS || BitBoard.availableDigits(pos, moverIsOdd) == 0) {
+            return 0;
+        }
+        return NONE;
+    }
+
+    private static long key(long pos, boolean moverIsOdd) {
+        long key = TranspositionTable.canonical(pos);
+        return moverIsOdd ? key | (1L << BitBoard.USED_SHIFT) : key;
+    }
+
+    private static int index(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+
+    private int index(long key) {
+        return index(key, mask);
+    }
+
+    // Offline memoized negamax over all reachable positions
+    private static final class Solver {
+        private final long[] table;
+        private final int mask;
+        private int count;
+
+        Solver(int slotBits) {
+            table = new long[1 << slotBits];
+            mask = table.length - 1;
+        }
+
+        int solve(long pos, boolean moverIsOdd) {
+            int v = resolve(pos, moverIsOdd);
+            if (v != NONE) {
+                return v;
+            }
+            long key = key(pos, moverIsOdd);
+            int i = index(key, mask);
+            for (long slot; (slot = table[i]) != 0; i = (i + 1) & mask) {
+                if ((slot >>> 8) == key) {
+                    return (byte) slot;
+                }
+            }
+            int best = Integer.MIN_VALUE;
+            int digits = BitBoard.availableDigits(pos, moverIsOdd);
+            for (long cells = BitBoard.emptyCells(pos); cells != 0; cells &= cells - 1) {
+                int cell = BitBoard.cellAt(cells);
+                for (int ds = digits; ds != 0; ds &= ds - 1) {
+                    long child = BitBoard.place(pos, cell, Integer.numberOfTrailingZeros(ds));
+                    best = Math.max(best, -solve(child, !moverIsOdd));
+                }
+            }
+            // The recursion may have filled slot i, so probe again before inserting
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            if (++count > table.length - table.length / 8) {
+                throw new IllegalStateException("Solution table too small");
+            }
+            table[i] = (key << 8) | (best & 0xFF);
+            return best;
+        }
+
+        void write(Path file) throws IOException {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(Integer.numberOfTrailingZeros(table.length)).putInt(count);
+                header.flip();
+                while (header.hasRemaining()) ch.write(header);
+
+                ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 20);
+                for (long slot : table) {
+                    if (!chunk.hasRemaining()) {
+                        chunk.flip();
+                        while (chunk.hasRemaining()) ch.write(chunk);
+                        chunk.clear();
+                    }
+                    chunk.putLong(slot);
+                }
+                chunk.flip();
+                while (chunk.hasRemaining()) ch.write(chunk);
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tournament.java
+ *
+ * Headless self-play between two strategies on every core, for checking engine
+ * changes without playing through the console.
+ *
+ * Usage: java Tournament games a b [seed] [threads] [csv]
+ * - a, b   : perfect (or minimax), hard, medium, easy, random, mcts[:playouts]
+ * - seed   : run seed (default 1)
+ * - threads: worker threads (default one per core)
+ * - csv    : per-game results file (default tournament.csv, - for stdout)
+ *
+ * Game g gives A the odd digits when g is even and the first move when g / 2 is
+ * even, so every block of four games covers each parity and turn order. Its
+ * random numbers (tie breaks, noise, random moves, MCTS seeds) come from a Random
+ * seeded with the run seed and g, so a game replays the same on any thread and
+ * in any run with the same seed. Only easy..hard can differ: they stop searching
+ * at a deadline.
+ *
+ * The CSV gets one row per game, in completion order, written a chunk of games
+ * at a time:
+ *   game,aParity,aFirst,result,moves,aNodes,bNodes,aMicros,bMicros
+ * result is from A's side (win, draw, loss). Totals are kept per thread and
+ * added up at the end into W/D/L for A per parity and turn order, plus average
+ * nodes and latency per move number for each side, so memory doesn't grow with
+ * the number of games.
+ *
+ * With -Dgameof15.journal=<file> every game is also appended to that GameJournal,
+ * with A as the "human" side.
+ */
+final class Tournament {
+
+    private static final int CHUNK = 256;     // games a worker claims at a time
+    private static final String HEADER = "game,aParity,aFirst,result,moves,aNodes,bNodes,aMicros,bMicros";
+
+    private final GameEngine engine;
+    private final String specA;
+    private final String specB;
+    private final long seed;
+    private final GameJournal journal;    // null => games aren't kept
+
+    Tournament(GameEngine engine, String specA, String specB, long seed, GameJournal journal) {
+        this.engine = engine;
+        this.specA = specA;
+        this.specB = specB;
+        this.seed = seed;
+        this.journal = journal;
+        strategy(specA, engine);    // fail fast on a bad spec
+        strategy(specB, engine);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: java Tournament games a b [seed] [threads] [csv]");
+            System.err.println("Strategies: perfect, hard, medium, easy, random, mcts[:playouts]");
+            return;
+        }
+        long games = Long.parseLong(args[0]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        String csv = args.length > 5 ? args[5] : "tournament.csv";
+
+        // Parallelism comes from playing many games at once, so each search is sequential
+        GameEngine engine = new GameEngine(GameEngine.loadSolutions(), 1);
+        String journalFile = System.getProperty("gameof15.journal");
+        GameJournal journal = journalFile == null ? null : GameJournal.open(Path.of(journalFile), 0);
+        Tournament tournament = new Tournament(engine, args[1], args[2], seed, journal);
+        Writer out = csv.equals("-")
+            ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+            : Files.newBufferedWriter(Path.of(csv), StandardCharsets.UTF_8);
+        long start = System.nanoTime();
+        Tally tally;
+        try (out) {
+            tally = tournament.run(games, threads, out);
+        } finally {
+            engine.shutdown();
+            if (journal != null) journal.close();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        // With the CSV on stdout the summary goes to stderr, out of its way
+        (csv.equals("-") ? System.err : System.out).print(
+            tournament.summary(tally, games, threads, seconds));
+    }
+
+    // Plays games 0..games-1 on threads workers, writing a CSV row per game to out
+    Tally run(long games, int threads, Writer out) throws IOException, InterruptedException {
+        out.write(HEADER);
+        out.write('\n');
+        AtomicLong next = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        List<Future<Tally>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(workers.submit(() -> play(games, next, out)));
+        }
+        workers.shutdown();
+        Tally total = new Tally();
+        try {
+            for (Future<Tally> result : results) {
+                total.add(result.get());
+            }
+        } catch (ExecutionException e) {
+            workers.shutdownNow();
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IllegalStateException("Tournament worker failed", e.getCause());
+        }
+        return total;
+    }
+
+    // One worker: claims chunks of games until there are none left
+    private Tally play(long games, AtomicLong next, Writer out) throws IOException {
+        // Strategies may keep per-game state (MCTS trees), so every worker has its own
+        MoveStrategy a = strategy(specA, engine);
+        MoveStrategy b = strategy(specB, engine);
+        Tally tally = new Tally();
+        StringBuilder rows = new StringBuilder(CHUNK * 48);
+        try {
+            for (long from; (from = next.getAndAdd(CHUNK)) < games; ) {
+                long to = Math.min(games, from + CHUNK);
+                for (long g = from; g < to; g++) {
+                    playGame(g, a, b, tally, rows);
+                }
+                synchronized (out) {
+                    out.append(rows);
+                }
+                rows.setLength(0);
+            }
+        } finally {
+            a.shutdown();
+            b.shutdown();
+        }
+        return tally;
+    }
+
+    private void playGame(long g, MoveStrategy a, MoveStrategy b, Tally tally, StringBuilder rows)
+            throws IOException {
+        boolean aIsOdd = (g & 1) == 0;
+        boolean aFirst = (g & 2) == 0;
+        Random rand = new Random(gameSeed(seed, g));
+        a.newGame(rand.nextLong());
+        b.newGame(rand.nextLong());
+
+        long pos = BitBoard.EMPTY;
+        boolean oddToMove = aFirst == aIsOdd;
+        long[] nodes = new long[2];
+        long[] nanos = new long[2];
+        int result = Tally.DRAW;
+        int moves = 0;
+        long record = GameRecord.start(aIsOdd, aFirst);
+        while (moves < BitBoard.CELLS && BitBoard.availableDigits(pos, oddToMove) != 0) {
+            int side = oddToMove == aIsOdd ? 0 : 1;
+            SearchStats stats = new SearchStats();
+            long start = System.nanoTime();
+            int move = (side == 0 ? a : b).chooseMove(pos, oddToMove, rand, stats);
+            long elapsed = System.nanoTime() - start;
+            pos = BitBoard.place(pos, BitBoard.moveCell(move), BitBoard.moveDigit(move));
+            record = GameRecord.withMove(record, move);
+            tally.move(side, moves, stats.nodes, elapsed);
+            nodes[side] += stats.nodes;
+            nanos[side] += elapsed;
+            moves++;
+            if (BitBoard.hasLine15(pos)) {
+                result = side == 0 ? Tally.WIN : Tally.LOSS;
+                break;
+            }
+            oddToMove = !oddToMove;
+        }
+        tally.results[Tally.config(aIsOdd, aFirst)][result]++;
+        if (journal != null) {
+            int outcome = result == Tally.DRAW ? GameRecord.TIE
+                : (result == Tally.WIN) == aIsOdd ? GameRecord.ODD_WON : GameRecord.EVEN_WON;
+            journal.append(GameRecord.finish(record, outcome));
+        }
+
+        rows.append(g).append(',').append(aIsOdd ? "odd" : "even").append(',').append(aFirst)
+            .append(',').append(Tally.RESULT_NAMES[result]).append(',').append(moves)
+            .append(',').append(nodes[0]).append(',').append(nodes[1])
+            .append(',').append(nanos[0] / 1000).append(',').append(nanos[1] / 1000).append('\n');
+    }
+
+    // SplitMix64 of the run seed and game number: nearby games get unrelated seeds
+    static long gameSeed(long seed, long game) {
+        long z = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // See the class comment for the names
+    static MoveStrategy strategy(String spec, GameEngine engine) {
+        String name = spec.trim().toLowerCase(Locale.ROOT);
+        if (name.equals("random")) {
+            return new RandomStrategy();
+        }
+        if (name.equals("minimax")) {
+            return new MinimaxStrategy(engine, Difficulty.PERFECT);
+        }
+        if (name.equals("mcts") || name.startsWith("mcts:")) {
+            long playouts = name.equals("mcts") ? 10_000 : Long.parseLong(name.substring(5));
+            return new MctsStrategy(new MctsSearch(MagicSumRules.of(3), 1, 0), 0, playouts, null);
+        }
+        return new MinimaxStrategy(engine, Difficulty.parse(name));
+    }
+
+    String summary(Tally t, long games, int threads, double seconds) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%s (A) vs %s (B): %d games, seed %d, %d threads, %.1f s (%.0f games/s)%n",
+            specA, specB, games, seed, threads, seconds, games / Math.max(seconds, 1e-9)));
+        sb.append(String.format(Locale.ROOT, "%-14s %10s %10s %10s%n", "A plays", "A wins", "draws", "B wins"));
+        long[] total = new long[3];
+        for (int aOdd = 1; aOdd >= 0; aOdd--) {
+            for (int aFirst = 1; aFirst >= 0; aFirst--) {
+                long[] r = t.results[Tally.config(aOdd == 1, aFirst == 1)];
+                sb.append(String.format(Locale.ROOT, "%-14s %10d %10d %10d%n",
+                    (aOdd == 1 ? "odd" : "even") + (aFirst == 1 ? ", first" : ", second"),
+                    r[Tally.WIN], r[Tally.DRAW], r[Tally.LOSS]));
+                for (int i = 0; i < 3; i++) total[i] += r[i];
+            }
+        }
+        sb.append(String.format(Locale.ROOT, "%-14s %10d %10d %10d%n", "total",
+            total[Tally.WIN], total[Tally.DRAW], total[Tally.LOSS]));
+        sb.append(String.format(Locale.ROOT, "%n%-5s %12s %12s %12s %12s%n",
+            "move", "A nodes", "A us", "B nodes", "B us"));
+        for (int m = 0; m < BitBoard.CELLS; m++) {
+            sb.append(String.format(Locale.ROOT, "%-5d", m + 1));
+            for (int side = 0; side < 2; side++) {
+                long n = t.moves[side][m];
+                if (n == 0) {
+                    sb.append(String.format(Locale.ROOT, " %12s %12s", "-", "-"));
+                } else {
+                    sb.append(String.format(Locale.ROOT, " %12.1f %12.1f",
+                        (double) t.nodes[side][m] / n, t.nanos[side][m] / 1e3 / n));
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    // Totals of one worker, or of all of them after add()
+    static final class Tally {
+        static final int WIN = 0;
+        static final int DRAW = 1;
+        static final int LOSS = 2;
+        static final String[] RESULT_NAMES = {"win", "draw", "loss"};
+
+        final long[][] results = new long[4][3];                // by config(), then A's result
+        final long[][] moves = new long[2][BitBoard.CELLS];     // by side (A, B), then move number
+        final long[][] nodes = new long[2][BitBoard.CELLS];
+        final long[][] nanos = new long[2][BitBoard.CELLS];
+
+        static int config(boolean aIsOdd, boolean aFirst) {
+            return (aIsOdd ? 0 : 2) + (aFirst ? 0 : 1);
+        }
+
+        void move(int side, int moveNumber, long n, long elapsed) {
+            moves[side][moveNumber]++;
+            nodes[side][moveNumber] += n;
+            nanos[side][moveNumber] += elapsed;
+        }
+
+        void add(Tally other) {
+            for (int c = 0; c < results.length; c++) {
+                for (int r = 0; r < 3; r++) results[c][r] += other.results[c][r];
+            }
+            for (int side = 0; side < 2; side++) {
+                for (int m = 0; m < BitBoard.CELLS; m++) {
+                    moves[side][m] += other.moves[side][m];
+                    nodes[side][m] += other.nodes[side][m];
+                    nanos[side][m] += other.nanos[side][m];
+                }
+            }
+        }
+    }
+}
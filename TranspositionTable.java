@@ -0,0 +1,129 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TranspositionTable.java
+ *
+ * Fixed-size, always-replace transposition table for the minimax search.
+ *
+ * Positions are keyed on their canonical form: the smallest packed cell layout
+ * over the 8 rotations/reflections of the 3x3 board (all 8 lines map onto lines,
+ * so symmetric positions share a value), plus a bit for the side to move.
+ * The used-digit mask is implied by the cells and is left out of the key.
+ *
+ * Each slot is one long: key (37 bits) | draft (4 bits) | bound flag (2 bits) |
+ * value (8 bits). A zero slot is empty, since every stored entry has a non-zero flag.
+ *
+ * The draft is how many plies below the position were searched before leaves were
+ * scored heuristically; a full-depth search stores the number of cells left, the
+ * most there can be. A depth-limited search only trusts entries searched at least
+ * as deep as it needs, so heuristic values never stand in for exact ones.
+ *
+ * Safe to share between search threads: a slot is read and written as a whole
+ * (opaque access, so never torn), and the embedded key rejects entries that
+ * another thread has overwritten in the meantime.
+ */
+final class TranspositionTable {
+
+    static final int EXACT = 1;
+    static final int LOWER = 2;   // value is a lower bound (search failed high)
+    static final int UPPER = 3;   // value is an upper bound (search failed low)
+
+    // Cell permutations: SYMMETRIES[s][i] is the cell that cell i moves to
+    static final int[][] SYMMETRIES = {
+        {0, 1, 2, 3, 4, 5, 6, 7, 8},   // identity
+        {2, 5, 8, 1, 4, 7, 0, 3, 6},   // rotate 90
+        {8, 7, 6, 5, 4, 3, 2, 1, 0},   // rotate 180
+        {6, 3, 0, 7, 4, 1, 8, 5, 2},   // rotate 270
+        {2, 1, 0, 5, 4, 3, 8, 7, 6},   // mirror left/right
+        {6, 7, 8, 3, 4, 5, 0, 1, 2},   // mirror top/bottom
+        {0, 3, 6, 1, 4, 7, 2, 5, 8},   // main diagonal
+        {8, 5, 2, 7, 4, 1, 6, 3, 0}    // anti diagonal
+    };
+
+    private static final int KEY_SHIFT = 14;
+    private static final int DRAFT_SHIFT = 10;
+    private static final long SIDE_BIT = 1L << BitBoard.USED_SHIFT;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    // sizeBits = log2 of the slot count
+    TranspositionTable(int sizeBits) {
+        slots = new AtomicLongArray(1 << sizeBits);
+        mask = slots.length() - 1;
+    }
+
+    // Smallest cell layout among the 8 symmetric images of pos
+    static long canonical(long pos) {
+        long cells = pos & BitBoard.CELL_BITS;
+        long best = cells;
+        for (int s = 1; s < SYMMETRIES.length; s++) {
+            long image = image(cells, SYMMETRIES[s]);
+            if (image < best) best = image;
+        }
+        return best;
+    }
+
+    // Index into SYMMETRIES of a symmetry taking pos to canonical(pos)
+    static int canonicalSymmetry(long pos) {
+        long cells = pos & BitBoard.CELL_BITS;
+        long best = cells;
+        int bestSym = 0;
+        for (int s = 1; s < SYMMETRIES.length; s++) {
+            long image = image(cells, SYMMETRIES[s]);
+            if (image < best) {
+                best = image;
+                bestSym = s;
+            }
+        }
+        return bestSym;
+    }
+
+    private static long image(long cells, int[] sym) {
+        long image = 0;
+        for (int i = 0; i < BitBoard.CELLS; i++) {
+            image |= ((cells >>> (i << 2)) & 0xF) << (sym[i] << 2);
+        }
+        return image;
+    }
+
+    // Lookup key: canonical cells plus side to move
+    static long key(long pos, boolean isMax) {
+        long key = canonical(pos);
+        return isMax ? key | SIDE_BIT : key;
+    }
+
+    // Returns the stored entry for key, or 0 if there is none
+    long probe(long key) {
+        long entry = slots.getOpaque(index(key));
+        return (entry >>> KEY_SHIFT) == key ? entry : 0;
+    }
+
+    void store(long key, int draft, int flag, int value) {
+        slots.setOpaque(index(key), (key << KEY_SHIFT) | ((long) draft << DRAFT_SHIFT)
+            | ((long) flag << 8) | (value & 0xFF));
+    }
+
+    void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.setOpaque(i, 0L);
+        }
+    }
+
+    static int draft(long entry) {
+        return (int) (entry >>> DRAFT_SHIFT) & 0xF;
+    }
+
+    static int flag(long entry) {
+        return (int) (entry >>> 8) & 0x3;
+    }
+
+    static int value(long entry) {
+        return (byte) entry;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & mask;
+    }
+}
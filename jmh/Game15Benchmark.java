@@ -0,0 +1,220 @@
+package gameof15;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Game15Benchmark.java
+ *
+ * JMH benchmarks for the search engine, run in both throughput and average-time
+ * mode with the gc profiler attached (allocation rate per op):
+ * - evaluate: full 8-line scan vs. the incremental line-sum check
+ * - minimax: one full-window call from a fixed set of mid-game positions
+ * - bestMove: AI root search from the start of the game, for both AI parities,
+ *   with the AI moving first (empty board) or replying to a center opening
+ * - selfPlay: a whole game of the engine against itself
+ * main() also runs MagicSumBenchmark (3x3 vs. 4x4 positions/sec).
+ *
+ * Every search starts from a cleared transposition table, so calls don't just
+ * read back the previous one's results. The clear is part of the measured call
+ * rather than a Level.Invocation fixture (too fine-grained for calls this short),
+ * so each table is sized to its search: twice the nodes a trial run visits,
+ * rounded up to a power of two, which keeps the clear to a few percent of the
+ * call instead of the milliseconds a 2^20 table takes.
+ *
+ * The benchmarks are in package gameof15 with a packaged copy of the engine,
+ * since JMH needs a named package (see gameof15-jmh.xml).
+ *
+ * Positions are 9-character strings in row-major order, '.' for an empty cell.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Game15Benchmark {
+
+    private static final int TRIAL_TT_BITS = 20;
+
+    // Benchmark regexes on the command line narrow the run, as with org.openjdk.jmh.Main
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cli).addProfiler(GCProfiler.class);
+        if (cli.getIncludes().isEmpty()) {
+            options.include(Game15Benchmark.class.getSimpleName())
+                .include(MagicSumBenchmark.class.getSimpleName());
+        }
+        new Runner(options.build()).run();
+    }
+
+    // Smallest table with at least twice as many slots as nodes
+    static TranspositionTable sizedTable(long nodes) {
+        return new TranspositionTable(Math.max(4, 65 - Long.numberOfLeadingZeros(Math.max(1, nodes - 1))));
+    }
+
+    // Packs a position string, see class comment
+    static long parse(String cells) {
+        long pos = BitBoard.EMPTY;
+        for (int i = 0; i < BitBoard.CELLS; i++) {
+            char ch = cells.charAt(i);
+            if (ch != '.') {
+                pos = BitBoard.place(pos, i, ch - '0');
+            }
+        }
+        return pos;
+    }
+
+    @State(Scope.Thread)
+    public static class EvaluateState {
+        @Param({"8.3.5.4.1", "816357492", "2.9.5.4.."})
+        String cells;
+
+        long pos;
+        long lines;
+
+        @Setup
+        public void setup() {
+            pos = parse(cells);
+            lines = BitBoard.lines(pos);
+        }
+    }
+
+    // Nanoseconds a call; in milliseconds the average time rounds to nothing
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean evaluateFullScan(EvaluateState s) {
+        return BitBoard.hasLine15(s.pos);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean evaluateIncremental(EvaluateState s) {
+        return BitBoard.completesLine(s.lines, 4);
+    }
+
+    // Human ODD moved first, AI (EVEN) to move
+    @State(Scope.Thread)
+    public static class MinimaxState {
+        @Param({"....5....", "8...5...1", "8.3.5.4.1"})
+        String cells;
+
+        long pos;
+        long lines;
+        int depth;
+        TranspositionTable tt;
+
+        @Setup
+        public void setup() {
+            pos = parse(cells);
+            lines = BitBoard.lines(pos);
+            depth = BitBoard.pieceCount(pos);
+            MinimaxSearch trial = new MinimaxSearch(true, new TranspositionTable(TRIAL_TT_BITS));
+            trial.minimax(pos, lines, 4, depth, true, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            tt = sizedTable(trial.nodes);
+        }
+    }
+
+    @Benchmark
+    public int minimax(MinimaxState s) {
+        s.tt.clear();
+        MinimaxSearch search = new MinimaxSearch(true, s.tt);
+        return search.minimax(s.pos, s.lines, 4, s.depth, true, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    // getBestOddMove / getBestEvenMove from the start of the game
+    @State(Scope.Thread)
+    public static class RootState {
+        @Param({"true", "false"})
+        boolean aiIsOdd;
+
+        @Param({"true", "false"})
+        boolean aiFirst;
+
+        long pos;
+        int depth;
+        int[] out = new int[BitBoard.CELLS * 10];
+        TranspositionTable tt;
+
+        @Setup
+        public void setup() {
+            pos = BitBoard.EMPTY;
+            if (!aiFirst) {
+                pos = BitBoard.place(pos, 4, aiIsOdd ? 4 : 5);   // human opens in the center
+            }
+            depth = BitBoard.pieceCount(pos);
+            MinimaxSearch trial = new MinimaxSearch(!aiIsOdd, new TranspositionTable(TRIAL_TT_BITS));
+            trial.bestMoves(pos, depth, out);
+            tt = sizedTable(trial.nodes);
+        }
+    }
+
+    @Benchmark
+    public int bestMove(RootState s) {
+        s.tt.clear();
+        MinimaxSearch search = new MinimaxSearch(!s.aiIsOdd, s.tt);
+        return search.bestMoves(s.pos, s.depth, s.out);
+    }
+
+    // Both sides played by the engine, first best move each turn
+    @State(Scope.Thread)
+    public static class SelfPlayState {
+        @Param({"true", "false"})
+        boolean oddFirst;
+
+        int[] out = new int[BitBoard.CELLS * 10];
+        TranspositionTable oddTable;
+        TranspositionTable evenTable;
+
+        @Setup
+        public void setup() {
+            MinimaxSearch odd = new MinimaxSearch(false, new TranspositionTable(TRIAL_TT_BITS));
+            MinimaxSearch even = new MinimaxSearch(true, new TranspositionTable(TRIAL_TT_BITS));
+            play(odd, even, oddFirst, out);
+            oddTable = sizedTable(odd.nodes);
+            evenTable = sizedTable(even.nodes);
+        }
+    }
+
+    @Benchmark
+    public long selfPlay(SelfPlayState s) {
+        s.oddTable.clear();
+        s.evenTable.clear();
+        MinimaxSearch odd = new MinimaxSearch(false, s.oddTable);    // AI odd
+        MinimaxSearch even = new MinimaxSearch(true, s.evenTable);   // AI even
+        return play(odd, even, s.oddFirst, s.out);
+    }
+
+    // The game both searches play out from the empty board; returns the final position
+    static long play(MinimaxSearch odd, MinimaxSearch even, boolean oddFirst, int[] out) {
+        long pos = BitBoard.EMPTY;
+        boolean oddToMove = oddFirst;
+        for (int depth = 0; depth < BitBoard.CELLS; depth++) {
+            if (BitBoard.availableDigits(pos, oddToMove) == 0) break;
+            MinimaxSearch side = oddToMove ? odd : even;
+            side.bestMoves(pos, depth, out);
+            int m = out[0];
+            pos = BitBoard.place(pos, BitBoard.moveCell(m), BitBoard.moveDigit(m));
+            if (BitBoard.hasLine15(pos)) break;
+            oddToMove = !oddToMove;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,79 @@
+package gameof15;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MagicSumBenchmark.java
+ *
+ * MagicSumSearch on the classic 3x3 board vs. 4x4 (target 34, digits 0..16): a
+ * root search deepened to a fixed ply count from the empty board, odd to move, with a cleared
+ * transposition table. Besides ops/s, the "positions" counter reports nodes
+ * searched per second, which is the number to compare across board sizes (a
+ * 4x4 node has more lines and moves to look at, and there are far more of them).
+ *
+ * Runs with the rest from Game15Benchmark.main; on its own, with other depths:
+ * java -jar target/benchmarks.jar MagicSumBenchmark -p size=4 -p plies=6
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class MagicSumBenchmark {
+
+    @State(Scope.Thread)
+    public static class SearchState {
+        @Param({"3", "4"})
+        int size;
+
+        @Param({"4", "5"})
+        int plies;
+
+        MagicSumSearch search;
+
+        @Setup
+        public void setup() {
+            search = new MagicSumSearch(MagicSumRules.of(size));
+        }
+
+        @Setup(Level.Invocation)
+        public void clearTables() {
+            search.board.clear();
+            search.clearTables();
+        }
+    }
+
+    // Nodes searched, reported by JMH as a rate next to ops/s
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Positions {
+        public long positions;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            positions = 0;
+        }
+    }
+
+    @Benchmark
+    public int fixedDepth(SearchState s, Positions counter) {
+        SearchStats stats = new SearchStats();
+        int move = s.search.bestMove(true, s.plies, SearchBudget.unlimited(), stats);
+        counter.positions += stats.nodes;
+        return move;
+    }
+}